@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * detection on a synthetic catalog, the host is the last version of the last distribution (worst case for a linear scan)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PlatformBenchmark {
+
+	@Param({"5", "50"})
+	public int distributions;
+
+	@Param({"10", "100", "1000"})
+	public int versionsPerDistribution;
+
+	private List<OS> osList;
+	private CompiledCatalog compiledCatalog;
+	private AttributeExtractorLookup host;
+	private MatcherLookup matcherLookup;
+
+	@Setup
+	public void setup() {
+		osList = SyntheticCatalog.of(distributions, versionsPerDistribution);
+		compiledCatalog = CompiledCatalog.of(osList);
+		host = SyntheticCatalog.host(SyntheticCatalog.distributionName(distributions - 1),
+			SyntheticCatalog.versionId(distributions - 1, versionsPerDistribution - 1));
+		matcherLookup = MatcherLookup.systemDefault();
+	}
+
+	@Benchmark
+	public Platform detect() {
+		return Platform.detect(osList, host, matcherLookup);
+	}
+
+	@Benchmark
+	public List<Platform> guess() {
+		return Platform.guess(osList, host, matcherLookup);
+	}
+
+	@Benchmark
+	public List<RankedPlatform> rank() {
+		return Platform.rank(osList, host, matcherLookup, 3);
+	}
+
+	@Benchmark
+	public Platform compiledDetect() {
+		return compiledCatalog.detect(host, matcherLookup);
+	}
+
+	@Benchmark
+	public List<Platform> compiledGuess() {
+		return compiledCatalog.guess(host, matcherLookup);
+	}
+
+	@Benchmark
+	public CompiledCatalog compile() {
+		return CompiledCatalog.of(osList);
+	}
+}
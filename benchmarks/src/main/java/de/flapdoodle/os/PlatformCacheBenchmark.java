@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * cache hits only, compare the throughput of -t 1 with -t &lt;cores&gt; to see the read scaling
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PlatformCacheBenchmark {
+
+	private List<OS> osList;
+	private Supplier<Platform> detection;
+
+	@Setup
+	public void setup() {
+		osList = SyntheticCatalog.of(5, 10);
+		Platform platform = Platform.detect(osList, SyntheticCatalog.host(SyntheticCatalog.distributionName(0), SyntheticCatalog.versionId(0, 0)),
+			MatcherLookup.systemDefault());
+		detection = () -> platform;
+		PlatformCache.detect(osList, detection);
+	}
+
+	@TearDown
+	public void tearDown() {
+		PlatformCache.invalidate();
+	}
+
+	@Benchmark
+	public Platform hit() {
+		return PlatformCache.detect(osList, detection);
+	}
+}
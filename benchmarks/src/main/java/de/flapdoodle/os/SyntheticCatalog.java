@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.DistinctPeculiarity;
+import de.flapdoodle.os.common.HasPecularities;
+import de.flapdoodle.os.common.OneOf;
+import de.flapdoodle.os.common.Peculiarity;
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.attributes.MappedTextFile;
+import de.flapdoodle.os.common.attributes.SystemProperty;
+import de.flapdoodle.os.common.collections.Enums;
+import de.flapdoodle.os.common.matcher.Matchers;
+import de.flapdoodle.os.common.types.ImmutableOsReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFileConverter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * generated catalog with a linux os of n distributions with m versions each, shaped like the real catalog:
+ * distributions match the os-release NAME, every second version an exact VERSION_ID, the others a VERSION_ID prefix
+ */
+public abstract class SyntheticCatalog {
+
+	private static final Attribute<OsReleaseFile> OS_RELEASE = Attributes.mappedTextFile("/etc/os-release", OsReleaseFileConverter.INSTANCE);
+	private static final List<CommonArchitecture> ARCHITECTURES = Enums.valuesAsList(CommonArchitecture.class);
+
+	private SyntheticCatalog() {
+		// no instance
+	}
+
+	public static List<OS> of(int distributions, int versionsPerDistribution) {
+		List<Distribution> linuxDistributions = new ArrayList<>(distributions);
+		for (int d = 0; d < distributions; d++) {
+			List<Version> versions = new ArrayList<>(versionsPerDistribution);
+			for (int v = 0; v < versionsPerDistribution; v++) {
+				String versionId = versionId(d, v);
+				versions.add(new SyntheticVersion(distributionName(d) + "_" + versionId, (v % 2 == 0)
+					? osReleaseEntry("VERSION_ID", Pattern.quote(versionId))
+					: OneOf.of(osReleaseEntry("VERSION_ID", Pattern.quote(versionId) + "\\..*"), osReleaseEntry("VERSION_ID", Pattern.quote(versionId)))));
+			}
+			linuxDistributions.add(new SyntheticDistribution(distributionName(d), versions, osReleaseEntry("NAME", ".*" + distributionName(d) + ".*")));
+		}
+
+		return Arrays.asList(
+			new SyntheticOS("Linux", OSType.Linux, linuxDistributions, osName("Linux")),
+			new SyntheticOS("Windows", OSType.Windows, Collections.emptyList(), osName("Windows.*")),
+			new SyntheticOS("OS_X", OSType.OS_X, Collections.emptyList(), osName("Mac OS X"))
+		);
+	}
+
+	public static String distributionName(int distribution) {
+		return "Dist" + distribution + "Linux";
+	}
+
+	public static String versionId(int distribution, int version) {
+		return distribution + "." + version;
+	}
+
+	/**
+	 * a linux host whose os-release file names the given distribution and version
+	 */
+	public static AttributeExtractorLookup host(String name, String versionId) {
+		return AttributeExtractorLookup
+			.with(SystemProperty.any(), it -> {
+				if (it.name().equals("os.name")) {
+					return Optional.of("Linux");
+				}
+				if (it.name().equals("os.arch")) {
+					return Optional.of("amd64");
+				}
+				return Optional.empty();
+			})
+			.join(AttributeExtractorLookup.<OsReleaseFile, MappedTextFile<OsReleaseFile>>with(MappedTextFile.any(),
+				attribute -> attribute.name().equals("/etc/os-release") ? Optional.of(ImmutableOsReleaseFile.builder()
+					.putAttributes("NAME", name)
+					.putAttributes("VERSION_ID", versionId)
+					.build()) : Optional.empty()))
+			.join(AttributeExtractorLookup.failing());
+	}
+
+	private static DistinctPeculiarity<String> osName(String pattern) {
+		return DistinctPeculiarity.of(Attributes.systemProperty("os.name"), Matchers.matchPattern(pattern));
+	}
+
+	private static DistinctPeculiarity<OsReleaseFile> osReleaseEntry(String key, String pattern) {
+		return DistinctPeculiarity.of(OS_RELEASE, Matchers.osReleaseFileEntry(key, pattern));
+	}
+
+	private static final class SyntheticOS implements OS {
+		private final String name;
+		private final OSType type;
+		private final List<Distribution> distributions;
+		private final List<Peculiarity> peculiarities;
+
+		private SyntheticOS(String name, OSType type, List<Distribution> distributions, Peculiarity peculiarity) {
+			this.name = name;
+			this.type = type;
+			this.distributions = distributions;
+			this.peculiarities = HasPecularities.asList(peculiarity);
+		}
+
+		@Override
+		public List<? extends Distribution> distributions() {
+			return distributions;
+		}
+
+		@Override
+		public List<? extends Architecture> architectures() {
+			return ARCHITECTURES;
+		}
+
+		@Override
+		public String name() {
+			return name;
+		}
+
+		@Override
+		public OSType type() {
+			return type;
+		}
+
+		@Override
+		public List<Peculiarity> pecularities() {
+			return peculiarities;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private static final class SyntheticDistribution implements Distribution {
+		private final String name;
+		private final List<Version> versions;
+		private final List<Peculiarity> peculiarities;
+
+		private SyntheticDistribution(String name, List<Version> versions, Peculiarity peculiarity) {
+			this.name = name;
+			this.versions = versions;
+			this.peculiarities = HasPecularities.asList(peculiarity);
+		}
+
+		@Override
+		public List<? extends Version> versions() {
+			return versions;
+		}
+
+		@Override
+		public String name() {
+			return name;
+		}
+
+		@Override
+		public List<Peculiarity> pecularities() {
+			return peculiarities;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private static final class SyntheticVersion implements Version {
+		private final String name;
+		private final List<Peculiarity> peculiarities;
+
+		private SyntheticVersion(String name, Peculiarity peculiarity) {
+			this.name = name;
+			this.peculiarities = HasPecularities.asList(peculiarity);
+		}
+
+		@Override
+		public String name() {
+			return name;
+		}
+
+		@Override
+		public List<Peculiarity> pecularities() {
+			return peculiarities;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common;
+
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.attributes.SystemProperty;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import de.flapdoodle.os.common.matcher.Matchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * trees of the given depth with three children per node, the matching child of a one of is always the last one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PeculiarityInspectorBenchmark {
+
+	private static final int FANOUT = 3;
+
+	@Param({"2", "4", "6"})
+	public int depth;
+
+	private AttributeExtractorLookup attributeExtractorLookup;
+	private MatcherLookup matcherLookup;
+
+	private Peculiarity oneOfLastMatches;
+	private Peculiarity allOfAllMatch;
+	private Peculiarity alternating;
+
+	@Setup
+	public void setup() {
+		attributeExtractorLookup = AttributeExtractorLookup.with(SystemProperty.any(), it -> Optional.of("Linux"));
+		matcherLookup = MatcherLookup.systemDefault();
+
+		oneOfLastMatches = oneOf(depth, true);
+		allOfAllMatch = allOf(depth);
+		alternating = alternating(depth, true);
+	}
+
+	@Benchmark
+	public boolean oneOf() {
+		return PeculiarityInspector.matches(attributeExtractorLookup, matcherLookup, oneOfLastMatches);
+	}
+
+	@Benchmark
+	public boolean allOf() {
+		return PeculiarityInspector.matches(attributeExtractorLookup, matcherLookup, allOfAllMatch);
+	}
+
+	@Benchmark
+	public boolean alternatingOneOfAllOf() {
+		return PeculiarityInspector.matches(attributeExtractorLookup, matcherLookup, alternating);
+	}
+
+	@Benchmark
+	public double scoreAlternatingOneOfAllOf() {
+		return PeculiarityScore.of(attributeExtractorLookup, matcherLookup, alternating);
+	}
+
+	private static Peculiarity oneOf(int depth, boolean matching) {
+		if (depth == 0) {
+			return leaf(matching);
+		}
+		Peculiarity[] children = new Peculiarity[FANOUT];
+		for (int i = 0; i < FANOUT; i++) {
+			children[i] = oneOf(depth - 1, matching && i == FANOUT - 1);
+		}
+		return OneOf.of(children);
+	}
+
+	private static Peculiarity allOf(int depth) {
+		if (depth == 0) {
+			return leaf(true);
+		}
+		Peculiarity[] children = new Peculiarity[FANOUT];
+		for (int i = 0; i < FANOUT; i++) {
+			children[i] = allOf(depth - 1);
+		}
+		return AllOf.of(children);
+	}
+
+	private static Peculiarity alternating(int depth, boolean matching) {
+		if (depth == 0) {
+			return leaf(matching);
+		}
+		Peculiarity[] children = new Peculiarity[FANOUT];
+		if (depth % 2 == 0) {
+			for (int i = 0; i < FANOUT; i++) {
+				children[i] = alternating(depth - 1, matching && i == FANOUT - 1);
+			}
+			return OneOf.of(children);
+		}
+		for (int i = 0; i < FANOUT; i++) {
+			children[i] = alternating(depth - 1, matching);
+		}
+		return AllOf.of(children);
+	}
+
+	private static Peculiarity leaf(boolean matching) {
+		return DistinctPeculiarity.of(Attributes.systemProperty("os.name"), Matchers.matchPattern(matching ? "Lin.x" : "Win.*"));
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link IO#readString(java.nio.file.Path, java.nio.charset.Charset)} against the {@code Files.exists} and
+ * {@code Files.readAllBytes} reader it replaced, on copies of the /etc/*-release files in src/main/resources/corpus.
+ * {@code missing} is the common case of a release file which does not exist on this host.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IOBenchmark {
+
+	@Param({"os-release-ubuntu-22.04", "os-release-fedora-39", "lsb-release-ubuntu-22.04", "missing"})
+	public String file;
+
+	private Path directory;
+	private Path path;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("io-benchmark");
+		path = directory.resolve(file);
+		if (!file.equals("missing")) {
+			try (InputStream in = IOBenchmark.class.getResourceAsStream("/corpus/" + file)) {
+				if (in == null) {
+					throw new IllegalArgumentException("corpus file not found: " + file);
+				}
+				Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(it -> it.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public Optional<String> readString() {
+		return IO.readString(path, StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public Optional<String> readStringLegacy() {
+		if (Files.exists(path)) {
+			try {
+				return Optional.of(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+			} catch (IOException iox) {
+				throw new UncheckedIOException(iox);
+			}
+		}
+		return Optional.empty();
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.matcher;
+
+import de.flapdoodle.os.common.types.ImmutableLsbReleaseFile;
+import de.flapdoodle.os.common.types.ImmutableOsReleaseFile;
+import de.flapdoodle.os.common.types.LsbReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * every matcher implementation with a literal, a wildcard and a regex pattern, as found in the catalog
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MatcherBenchmark {
+
+	public enum Kind {
+		LITERAL("Linux", "\\Q22.04\\E"),
+		WILDCARD(".*amzn2023.*", "22\\.04.*"),
+		REGEX("^(Linux|Mac OS X)\\s*[0-9]*$", "2[0-9]\\.(04|10)");
+
+		private final String osName;
+		private final String versionId;
+
+		Kind(String osName, String versionId) {
+			this.osName = osName;
+			this.versionId = versionId;
+		}
+	}
+
+	@Param
+	public Kind kind;
+
+	private final PatternMatcher patternMatcher = new PatternMatcher();
+	private final OsReleaseFileEntryMatcher osReleaseFileEntryMatcher = new OsReleaseFileEntryMatcher();
+	private final LsbReleaseFileEntryMatcher lsbReleaseFileEntryMatcher = new LsbReleaseFileEntryMatcher();
+
+	private Optional<String> osName;
+	private Optional<OsReleaseFile> osReleaseFile;
+	private Optional<LsbReleaseFile> lsbReleaseFile;
+
+	private MatchPattern osNamePattern;
+	private OsReleaseFileMapEntry osReleaseFileEntry;
+	private LsbReleaseFileMapEntry lsbReleaseFileEntry;
+
+	@Setup
+	public void setup() {
+		osName = Optional.of(kind == Kind.WILDCARD ? "4.14.256-197.484.amzn2023.x86_64" : "Linux");
+		osReleaseFile = Optional.of(ImmutableOsReleaseFile.builder()
+			.putAttributes("NAME", "Ubuntu")
+			.putAttributes("VERSION_ID", "22.04")
+			.build());
+		lsbReleaseFile = Optional.of(ImmutableLsbReleaseFile.builder()
+			.putAttributes("DISTRIB_ID", "Ubuntu")
+			.putAttributes("DISTRIB_RELEASE", "22.04")
+			.build());
+
+		osNamePattern = Matchers.matchPattern(kind.osName);
+		osReleaseFileEntry = Matchers.osReleaseFileEntry("VERSION_ID", kind.versionId);
+		lsbReleaseFileEntry = Matchers.lsbReleaseFileEntry("DISTRIB_RELEASE", kind.versionId);
+	}
+
+	@Benchmark
+	public boolean patternMatcher() {
+		return patternMatcher.match(osName, osNamePattern);
+	}
+
+	@Benchmark
+	public boolean osReleaseFileEntryMatcher() {
+		return osReleaseFileEntryMatcher.match(osReleaseFile, osReleaseFileEntry);
+	}
+
+	@Benchmark
+	public boolean lsbReleaseFileEntryMatcher() {
+		return lsbReleaseFileEntryMatcher.match(lsbReleaseFile, lsbReleaseFileEntry);
+	}
+}
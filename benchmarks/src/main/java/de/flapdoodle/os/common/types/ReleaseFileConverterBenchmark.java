@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.types;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * converts release files captured from real hosts, see src/main/resources/corpus.
+ * the {@code *Legacy} benchmarks run the converters before {@link ReleaseFileParser} as baseline
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReleaseFileConverterBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class OsRelease {
+		@Param({"ubuntu-22.04", "debian-12", "centos-7", "amazon-2023", "fedora-39", "alpine-3.19"})
+		public String file;
+
+		private String content;
+
+		@Setup
+		public void setup() {
+			content = corpus("os-release-" + file);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class LsbRelease {
+		@Param({"ubuntu-22.04", "linuxmint-21"})
+		public String file;
+
+		private String content;
+
+		@Setup
+		public void setup() {
+			content = corpus("lsb-release-" + file);
+		}
+	}
+
+	@Benchmark
+	public OsReleaseFile osReleaseFile(OsRelease state) {
+		return OsReleaseFileConverter.convert(state.content);
+	}
+
+	@Benchmark
+	public LsbReleaseFile lsbReleaseFile(LsbRelease state) {
+		return LsbReleaseFileConverter.convert(state.content);
+	}
+
+	@Benchmark
+	public OsReleaseFile osReleaseFileLegacy(OsRelease state) {
+		return LegacyReleaseFileConverter.osReleaseFile(state.content);
+	}
+
+	@Benchmark
+	public LsbReleaseFile lsbReleaseFileLegacy(LsbRelease state) {
+		return LegacyReleaseFileConverter.lsbReleaseFile(state.content);
+	}
+
+	private static String corpus(String name) {
+		try (InputStream in = ReleaseFileConverterBenchmark.class.getResourceAsStream("/corpus/" + name)) {
+			if (in == null) {
+				throw new IllegalArgumentException("corpus file not found: " + name);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException iox) {
+			throw new UncheckedIOException(iox);
+		}
+	}
+}
@@ -21,4 +21,6 @@ import de.flapdoodle.os.common.HasPecularities;
 public interface Architecture extends HasPecularities {
   CPUType cpuType();
   BitSize bitSize();
+
+  Endianness endianness();
 }
@@ -18,5 +18,11 @@ package de.flapdoodle.os;
 
 public enum CPUType {
   X86,
-  ARM
+  ARM,
+  PPC,
+  S390,
+  RISCV,
+  MIPS,
+  SPARC,
+  ITANIUM
 }
@@ -21,25 +21,47 @@ import de.flapdoodle.os.common.HasPecularities;
 import de.flapdoodle.os.common.Peculiarity;
 import de.flapdoodle.os.common.attributes.Attribute;
 import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.matcher.ArchitectureTable;
 import de.flapdoodle.os.common.matcher.Matchers;
 
 import java.util.List;
 
+/**
+ * every entry matches the {@code os.arch} values listed in {@link ArchitectureTable}
+ */
 public enum CommonArchitecture implements Architecture {
-  X86_64(CPUType.X86, BitSize.B64, osArchMatches("^(x8664|amd64|ia32e|em64t|x64|x86_64)$")),
-  X86_32(CPUType.X86, BitSize.B32, osArchMatches("^(x8632|x86|i[3-6]86|ia32|x32)$")),
-  ARM_64(CPUType.ARM, BitSize.B64, osArchMatches("^aarch64$")),
-  ARM_32(CPUType.ARM, BitSize.B32, osArchMatches("^(arm|arm32)$"))
+  X86_64(CPUType.X86, BitSize.B64, Endianness.LITTLE),
+  X86_32(CPUType.X86, BitSize.B32, Endianness.LITTLE),
+  ARM_64(CPUType.ARM, BitSize.B64, Endianness.LITTLE),
+  ARM_32(CPUType.ARM, BitSize.B32, Endianness.LITTLE),
+  PPC_64_LE(CPUType.PPC, BitSize.B64, Endianness.LITTLE),
+  PPC_64(CPUType.PPC, BitSize.B64, Endianness.BIG),
+  PPC_32_LE(CPUType.PPC, BitSize.B32, Endianness.LITTLE),
+  PPC_32(CPUType.PPC, BitSize.B32, Endianness.BIG),
+  S390_64(CPUType.S390, BitSize.B64, Endianness.BIG),
+  S390_32(CPUType.S390, BitSize.B32, Endianness.BIG),
+  RISCV_64(CPUType.RISCV, BitSize.B64, Endianness.LITTLE),
+  RISCV_32(CPUType.RISCV, BitSize.B32, Endianness.LITTLE),
+  MIPS_64_LE(CPUType.MIPS, BitSize.B64, Endianness.LITTLE),
+  MIPS_64(CPUType.MIPS, BitSize.B64, Endianness.BIG),
+  MIPS_32_LE(CPUType.MIPS, BitSize.B32, Endianness.LITTLE),
+  MIPS_32(CPUType.MIPS, BitSize.B32, Endianness.BIG),
+  SPARC_64(CPUType.SPARC, BitSize.B64, Endianness.BIG),
+  SPARC_32(CPUType.SPARC, BitSize.B32, Endianness.BIG),
+  ITANIUM_64(CPUType.ITANIUM, BitSize.B64, Endianness.LITTLE),
+  ITANIUM_32(CPUType.ITANIUM, BitSize.B32, Endianness.LITTLE)
   ;
 
   private final CPUType cpuType;
   private final BitSize bitSize;
+  private final Endianness endianness;
   private final List<Peculiarity> peculiarities;
 
-  CommonArchitecture(CPUType cpuType, BitSize bitSize, DistinctPeculiarity<?>... peculiarities) {
+  CommonArchitecture(CPUType cpuType, BitSize bitSize, Endianness endianness) {
     this.cpuType = cpuType;
     this.bitSize = bitSize;
-    this.peculiarities = HasPecularities.asList(peculiarities);
+    this.endianness = endianness;
+    this.peculiarities = HasPecularities.asList(osArchIs(cpuType, bitSize, endianness));
   }
 
   @Override
@@ -52,82 +74,21 @@ public enum CommonArchitecture implements Architecture {
     return bitSize;
   }
 
+  @Override
+  public Endianness endianness() {
+    return endianness;
+  }
+
   @Override
   public List<Peculiarity> pecularities() {
     return peculiarities;
   }
 
-  private static DistinctPeculiarity<String> osArchMatches(String name) {
-    return DistinctPeculiarity.of(osArchProperty(), Matchers.matchPattern(name));
+  private static DistinctPeculiarity<String> osArchIs(CPUType cpuType, BitSize bitSize, Endianness endianness) {
+    return DistinctPeculiarity.of(osArchProperty(), Matchers.architecture(cpuType, bitSize, endianness));
   }
 
   static Attribute<String> osArchProperty() {
     return Attributes.systemProperty("os.arch");
   }
-
-//  String osArch = System.getProperty("os.arch");
-//		if (osArch.equals("i686_64") || osArch.equals("x86_64") || osArch.equals("amd64") || osArch.equals("ppc64le") || osArch.equals("aarch64"))
-//  bitSize = BitSize.B64;
-
-  /*
-   private static String normalizeArch(String value) {
-        value = normalize(value);
-        if (value.matches("^(x8664|amd64|ia32e|em64t|x64)$")) {
-            return "x86_64";
-        }
-        if (value.matches("^(x8632|x86|i[3-6]86|ia32|x32)$")) {
-            return "x86_32";
-        }
-        if (value.matches("^(ia64w?|itanium64)$")) {
-            return "itanium_64";
-        }
-        if ("ia64n".equals(value)) {
-            return "itanium_32";
-        }
-        if (value.matches("^(sparc|sparc32)$")) {
-            return "sparc_32";
-        }
-        if (value.matches("^(sparcv9|sparc64)$")) {
-            return "sparc_64";
-        }
-        if (value.matches("^(arm|arm32)$")) {
-            return "arm_32";
-        }
-        if ("aarch64".equals(value)) {
-            return "aarch_64";
-        }
-        if (value.matches("^(mips|mips32)$")) {
-            return "mips_32";
-        }
-        if (value.matches("^(mipsel|mips32el)$")) {
-            return "mipsel_32";
-        }
-        if ("mips64".equals(value)) {
-            return "mips_64";
-        }
-        if ("mips64el".equals(value)) {
-            return "mipsel_64";
-        }
-        if (value.matches("^(ppc|ppc32)$")) {
-            return "ppc_32";
-        }
-        if (value.matches("^(ppcle|ppc32le)$")) {
-            return "ppcle_32";
-        }
-        if ("ppc64".equals(value)) {
-            return "ppc_64";
-        }
-        if ("ppc64le".equals(value)) {
-            return "ppcle_64";
-        }
-        if ("s390".equals(value)) {
-            return "s390_32";
-        }
-        if ("s390x".equals(value)) {
-            return "s390_64";
-        }
-
-        return UNKNOWN;
-    }
-   */
 }
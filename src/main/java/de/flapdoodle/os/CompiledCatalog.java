@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.CandidateIndex;
+import de.flapdoodle.os.common.CompiledPeculiarities;
+import de.flapdoodle.os.common.Condition;
+import de.flapdoodle.os.common.Evaluation;
+import de.flapdoodle.os.common.HasPecularities;
+import de.flapdoodle.os.common.HasPriority;
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.AttributeColumns;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.collections.Immutables;
+import de.flapdoodle.os.common.listener.DetectionListener.Phase;
+import de.flapdoodle.os.common.listener.DetectionListeners;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * os catalog compiled once into conditions over a shared list of distinct checks.
+ * detection walks os, architecture, distribution and version like {@link Platform#detect(Collection)},
+ * but every distinct check is evaluated at most once and only for the subtree of the matching os.
+ * distributions and versions which need a literal release file entry are found with a {@link CandidateIndex} lookup.
+ */
+public final class CompiledCatalog {
+
+  static final int CACHE_SIZE = 16;
+
+  private static final ConcurrentMap<List<OS>, CompiledCatalog> cache = new ConcurrentHashMap<>();
+
+  private final List<OS> osList;
+  private final CompiledPeculiarities peculiarities = new CompiledPeculiarities();
+  private final Map<HasPecularities, Condition> conditions = new IdentityHashMap<>();
+  private final Map<Object, CandidateIndex<?>> indexes = new IdentityHashMap<>();
+  private volatile String fingerprint;
+
+  private CompiledCatalog(Collection<? extends OS> osList) {
+    this.osList = Collections.unmodifiableList(new ArrayList<>(osList));
+
+    for (OS os : this.osList) {
+      compile(os);
+      os.architectures().forEach(this::compile);
+      for (Distribution distribution : os.distributions()) {
+        compile(distribution);
+        distribution.versions().forEach(this::compile);
+      }
+    }
+
+    index(this.osList, this.osList);
+    for (OS os : this.osList) {
+      index(os, os.distributions());
+      for (Distribution distribution : os.distributions()) {
+        index(distribution, distribution.versions());
+      }
+    }
+  }
+
+  private <T extends HasPecularities> void index(Object parent, List<? extends T> items) {
+    indexes.computeIfAbsent(parent, it -> CandidateIndex.of(new ArrayList<T>(items), this::condition, peculiarities));
+  }
+
+  private void compile(HasPecularities item) {
+    conditions.computeIfAbsent(item, it -> peculiarities.compile(it.pecularities()));
+  }
+
+  public static CompiledCatalog of(Collection<? extends OS> osList) {
+    return new CompiledCatalog(osList);
+  }
+
+  /**
+   * same as {@link #of(Collection)}, but compiled only once per catalog.
+   * keeps at most {@link #CACHE_SIZE} catalogs, usually there is only one.
+   */
+  public static CompiledCatalog cached(Collection<? extends OS> osList) {
+    List<?> lookupKey = osList instanceof List ? (List<?>) osList : new ArrayList<>(osList);
+    CompiledCatalog catalog = cache.get(lookupKey);
+    if (catalog == null) {
+      if (cache.size() >= CACHE_SIZE) {
+        cache.clear();
+      }
+      catalog = cache.computeIfAbsent(Collections.unmodifiableList(new ArrayList<>(osList)), CompiledCatalog::new);
+    }
+    return catalog;
+  }
+
+  public List<OS> osList() {
+    return osList;
+  }
+
+  /**
+   * see {@link PersistentPlatformCache#fingerprint(Collection)}, computed on first use
+   */
+  String fingerprint() {
+    String result = fingerprint;
+    if (result == null) {
+      result = PersistentPlatformCache.fingerprint(osList);
+      fingerprint = result;
+    }
+    return result;
+  }
+
+  public Set<Attribute<?>> attributes() {
+    return peculiarities.attributes();
+  }
+
+  /**
+   * attributes the os and architecture entries depend on
+   */
+  public Set<Attribute<?>> osAttributes() {
+    return attributesOf(osList.stream()
+      .flatMap(os -> Stream.concat(Stream.of(os), os.architectures().stream())));
+  }
+
+  /**
+   * attributes the distributions and versions of these os entries depend on
+   */
+  public Set<Attribute<?>> distributionAttributes(Collection<? extends OS> candidates) {
+    return attributesOf(candidates.stream()
+      .flatMap(os -> os.distributions().stream())
+      .flatMap(dist -> Stream.concat(Stream.of(dist), dist.versions().stream())));
+  }
+
+  private Set<Attribute<?>> attributesOf(Stream<? extends HasPecularities> items) {
+    BitSet checks = new BitSet();
+    items.forEach(it -> condition(it).collectChecks(checks));
+    Set<Attribute<?>> attributes = new LinkedHashSet<>();
+    checks.stream().forEach(index -> attributes.add(peculiarities.check(index).attribute()));
+    return attributes;
+  }
+
+  public Platform detect() {
+    return detect(DetectionListeners.wrap(AttributeExtractorLookup.systemDefault()), MatcherLookup.systemDefault());
+  }
+
+  public List<Platform> guess() {
+    return guess(DetectionListeners.wrap(AttributeExtractorLookup.systemDefault()), MatcherLookup.systemDefault());
+  }
+
+  public Platform detect(AttributeExtractorLookup attributeExtractorLookup, MatcherLookup matcherLookup) {
+    Evaluation evaluation = peculiarities.evaluation(attributeExtractorLookup, matcherLookup);
+
+    OS os = DetectionListeners.phase(Phase.OS, () -> match(evaluation, osList, osList));
+    Architecture architecture = DetectionListeners.phase(Phase.ARCHITECTURE, () -> match(evaluation, null, os.architectures()));
+
+    Optional<Distribution> dist = DetectionListeners.phase(Phase.DISTRIBUTION, () -> find(evaluation, os, os.distributions()));
+    Optional<Version> version = DetectionListeners.phase(Phase.VERSION, () -> dist.flatMap(d -> find(evaluation, d, d.versions())));
+
+    return ImmutablePlatform.builder()
+      .operatingSystem(os)
+      .distribution(dist)
+      .version(version)
+      .architecture(architecture)
+      .build();
+  }
+
+  public List<Platform> guess(AttributeExtractorLookup attributeExtractorLookup, MatcherLookup matcherLookup) {
+    Evaluation evaluation = peculiarities.evaluation(attributeExtractorLookup, matcherLookup);
+
+    OS os = DetectionListeners.phase(Phase.OS, () -> match(evaluation, osList, osList));
+    Architecture architecture = DetectionListeners.phase(Phase.ARCHITECTURE, () -> match(evaluation, null, os.architectures()));
+
+    List<Distribution> dists = DetectionListeners.phase(Phase.DISTRIBUTION, () -> matching(evaluation, os, os.distributions()));
+    List<Platform> platforms = dists.stream()
+      .flatMap(dist -> {
+        List<? extends Version> versions = DetectionListeners.phase(Phase.VERSION, () -> matching(evaluation, dist, dist.versions()));
+
+        return !versions.isEmpty()
+          ? versions.stream()
+            .map(version -> ImmutablePlatform.builder()
+              .operatingSystem(os)
+              .distribution(dist)
+              .architecture(architecture)
+              .version(version)
+              .build())
+          : Stream.of(ImmutablePlatform.builder()
+            .operatingSystem(os)
+            .distribution(dist)
+            .architecture(architecture)
+            .build());
+      })
+      .collect(Collectors.toList());
+
+    return !platforms.isEmpty()
+      ? platforms
+      : Immutables.asNonEmptyList(ImmutablePlatform.builder()
+        .operatingSystem(os)
+        .architecture(architecture)
+        .build());
+  }
+
+  /**
+   * classifies many hosts at once: every check is evaluated column by column over all hosts,
+   * each catalog entry gets a bitset of matching hosts, hosts are resolved in parallel.
+   * @return one result per row, empty if os or architecture do not match exactly once
+   */
+  public List<Optional<Platform>> detectAll(AttributeColumns columns, MatcherLookup matcherLookup) {
+    int rows = columns.rows();
+    BitSet[] checks = peculiarities.evaluate(columns, matcherLookup);
+
+    Map<HasPecularities, BitSet> matchingRows = new IdentityHashMap<>();
+    conditions.forEach((item, condition) -> matchingRows.put(item, condition.rows(checks, rows)));
+
+    return IntStream.range(0, rows)
+      .parallel()
+      .mapToObj(row -> detect(row, matchingRows))
+      .collect(Collectors.toList());
+  }
+
+  private Optional<Platform> detect(int row, Map<HasPecularities, BitSet> matchingRows) {
+    List<OS> os = matching(row, matchingRows, osList);
+    if (os.size() != 1) {
+      return Optional.empty();
+    }
+    List<Architecture> architectures = matching(row, matchingRows, os.get(0).architectures());
+    if (architectures.size() != 1) {
+      return Optional.empty();
+    }
+    Optional<Distribution> dist = CompiledCatalog.<Distribution>matching(row, matchingRows, os.get(0).distributions()).stream().findFirst();
+    Optional<Version> version = dist.flatMap(d -> CompiledCatalog.<Version>matching(row, matchingRows, d.versions()).stream().findFirst());
+
+    return Optional.of(ImmutablePlatform.builder()
+      .operatingSystem(os.get(0))
+      .architecture(architectures.get(0))
+      .distribution(dist)
+      .version(version)
+      .build());
+  }
+
+  private static <T extends HasPecularities> List<T> matching(int row, Map<HasPecularities, BitSet> matchingRows, List<? extends T> items) {
+    List<T> unsorted = items.stream()
+      .filter(it -> matchingRows.get(it).get(row))
+      .collect(Collectors.toList());
+
+    return HasPriority.sortedByPriority(unsorted);
+  }
+
+  private <T extends HasPecularities> T match(Evaluation evaluation, Object parent, List<? extends T> items) {
+    List<T> matching = matching(evaluation, parent, items);
+    if (matching.isEmpty()) {
+      throw new IllegalArgumentException("no match out of " + items);
+    }
+    if (matching.size() > 1) {
+      throw new IllegalArgumentException("more than one match: " + matching);
+    }
+    return matching.get(0);
+  }
+
+  private <T extends HasPecularities> Optional<T> find(Evaluation evaluation, Object parent, List<? extends T> items) {
+    List<T> matching = matching(evaluation, parent, items);
+    if (matching.size() > 1) {
+      Log.logger.warn("more than one match: {}, using first match", matching);
+    }
+    return !matching.isEmpty()
+      ? Optional.of(matching.get(0))
+      : Optional.empty();
+  }
+
+  /**
+   * @param parent catalog entry (or os list) the items belong to, null if there is no candidate index
+   */
+  private <T extends HasPecularities> List<T> matching(Evaluation evaluation, Object parent, List<? extends T> items) {
+    CandidateIndex<T> index = parent != null ? (CandidateIndex<T>) indexes.get(parent) : null;
+    List<? extends T> candidates = index != null
+      ? index.candidates(evaluation)
+      : items;
+
+    List<T> unsorted = candidates.stream()
+      .filter(it -> condition(it).test(evaluation))
+      .collect(Collectors.toList());
+
+    return HasPriority.sortedByPriority(unsorted);
+  }
+
+  private Condition condition(HasPecularities item) {
+    Condition condition = conditions.get(item);
+    if (condition == null) {
+      throw new IllegalArgumentException("not part of this catalog: " + item);
+    }
+    return condition;
+  }
+
+  /**
+   * logger holder, so a catalog can be created while building a native image without initializing the logging backend
+   */
+  private static final class Log {
+    private static final Logger logger = LoggerFactory.getLogger(CompiledCatalog.class);
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.AllOf;
+import de.flapdoodle.os.common.DistinctPeculiarity;
+import de.flapdoodle.os.common.OneOf;
+import de.flapdoodle.os.common.Peculiarity;
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.MappedTextFile;
+import de.flapdoodle.os.common.attributes.SystemProperty;
+import de.flapdoodle.os.common.matcher.LazyPattern;
+import de.flapdoodle.os.common.matcher.LsbReleaseFileMapEntry;
+import de.flapdoodle.os.common.matcher.MatchPattern;
+import de.flapdoodle.os.common.matcher.OsReleaseFileMapEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * opt-in detection cache for short living jvms, stored as properties file
+ * in $XDG_CACHE_HOME/de.flapdoodle.os (or ~/.cache/de.flapdoodle.os, or -Dde.flapdoodle.os.cache.dir).
+ * the file name contains a fingerprint of the catalog. an entry is only used if the boot id,
+ * the system properties used for detection and size, mtime and file key of every file the catalog reads
+ * did not change since it was written. with -Dde.flapdoodle.os.override set the cache is neither read nor written.
+ */
+public abstract class PersistentPlatformCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(PersistentPlatformCache.class);
+
+  static final String FORMAT_VERSION = "1";
+  static final Duration MAX_AGE = Duration.ofDays(30);
+
+  private static final String PREFIX = "platform-";
+  private static final String SUFFIX = ".properties";
+
+  private static final Path BOOT_ID = Paths.get("/proc/sys/kernel/random/boot_id");
+
+  private PersistentPlatformCache() {
+    // no instance
+  }
+
+  public static Platform detect(Collection<? extends OS> osList) {
+    return detect(osList, directory(), () -> Platform.detect(osList));
+  }
+
+  static Platform detect(Collection<? extends OS> osList, Path directory, Supplier<Platform> detection) {
+    if (Platform.isOverridden()) {
+      return detection.get();
+    }
+
+    Path cacheFile = directory.resolve(PREFIX + CompiledCatalog.cached(osList).fingerprint() + SUFFIX);
+    Properties state = state(systemProperties(osList), PlatformWatcher.watchedFiles(osList));
+
+    Optional<Platform> cached = read(cacheFile)
+      .filter(entry -> isValid(entry, state))
+      .flatMap(entry -> Platform.resolve(osList,
+        entry.getProperty("platform.os"),
+        entry.getProperty("platform.architecture"),
+        entry.getProperty("platform.distribution"),
+        entry.getProperty("platform.version")));
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+
+    Platform detected = detection.get();
+    write(cacheFile, detected, state);
+    prune(directory, cacheFile, state.getProperty("state.bootId"));
+    return detected;
+  }
+
+  static Path directory() {
+    String directory = System.getProperty("de.flapdoodle.os.cache.dir");
+    if (directory != null && !directory.trim().isEmpty()) {
+      return Paths.get(directory);
+    }
+    String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+    Path base = xdgCacheHome != null && !xdgCacheHome.trim().isEmpty()
+      ? Paths.get(xdgCacheHome)
+      : Paths.get(System.getProperty("user.home"), ".cache");
+    return base.resolve("de.flapdoodle.os");
+  }
+
+  /**
+   * hash of names and peculiarities of every catalog entry, built from data which does not change between
+   * two jvm starts (names, attribute and match values, pattern sources and flags, converter class names).
+   * use {@link CompiledCatalog#fingerprint()} to compute it once per catalog.
+   */
+  static String fingerprint(Collection<? extends OS> osList) {
+    StringBuilder sb = new StringBuilder();
+    for (OS os : osList) {
+      append(sb, "os", os.name(), os.pecularities());
+      for (Architecture architecture : os.architectures()) {
+        append(sb, "architecture", String.valueOf(architecture), architecture.pecularities());
+      }
+      for (Distribution distribution : os.distributions()) {
+        append(sb, "distribution", distribution.name(), distribution.pecularities());
+        for (Version version : distribution.versions()) {
+          append(sb, "version", version.name(), version.pecularities());
+        }
+      }
+    }
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder();
+      for (int i = 0; i < 8; i++) {
+        hex.append(String.format("%02x", hash[i]));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException nsx) {
+      throw new IllegalStateException(nsx);
+    }
+  }
+
+  private static void append(StringBuilder sb, String type, String name, List<Peculiarity> peculiarities) {
+    sb.append(type).append(':').append(name).append(':');
+    appendAll(sb, peculiarities);
+    sb.append('\n');
+  }
+
+  private static void appendAll(StringBuilder sb, List<Peculiarity> peculiarities) {
+    sb.append('[');
+    for (Peculiarity peculiarity : peculiarities) {
+      append(sb, peculiarity);
+      sb.append(',');
+    }
+    sb.append(']');
+  }
+
+  private static void append(StringBuilder sb, Object value) {
+    if (value instanceof AllOf) {
+      sb.append("allOf");
+      appendAll(sb, ((AllOf) value).pecularities());
+    } else if (value instanceof OneOf) {
+      sb.append("oneOf");
+      appendAll(sb, ((OneOf) value).pecularities());
+    } else if (value instanceof DistinctPeculiarity) {
+      append(sb, ((DistinctPeculiarity<?>) value).attribute());
+      sb.append('~');
+      append(sb, ((DistinctPeculiarity<?>) value).match());
+    } else if (value instanceof MappedTextFile) {
+      MappedTextFile<?> file = (MappedTextFile<?>) value;
+      sb.append("mappedTextFile(").append(file.name()).append(',').append(file.charset().name())
+        .append(',').append(className(file.converter())).append(')');
+    } else if (value instanceof MatchPattern) {
+      sb.append("pattern(");
+      append(sb, ((MatchPattern) value).lazyPattern());
+      sb.append(')');
+    } else if (value instanceof OsReleaseFileMapEntry) {
+      sb.append("osReleaseFile(").append(((OsReleaseFileMapEntry) value).key()).append(',');
+      append(sb, ((OsReleaseFileMapEntry) value).lazyValuePattern());
+      sb.append(')');
+    } else if (value instanceof LsbReleaseFileMapEntry) {
+      sb.append("lsbReleaseFile(").append(((LsbReleaseFileMapEntry) value).key()).append(',');
+      append(sb, ((LsbReleaseFileMapEntry) value).lazyValuePattern());
+      sb.append(')');
+    } else if (value instanceof LazyPattern) {
+      sb.append(((LazyPattern) value).source()).append('/').append(((LazyPattern) value).flags());
+    } else {
+      // value types made of strings and enums, their toString does not contain identity hashes
+      sb.append(value.getClass().getName()).append(value);
+    }
+  }
+
+  /**
+   * lambda class names contain a counter and an address which change between jvm starts
+   */
+  private static String className(Object value) {
+    String name = value.getClass().getName();
+    int lambda = name.indexOf("$$Lambda");
+    return lambda != -1 ? name.substring(0, lambda) : name;
+  }
+
+  /**
+   * everything a detection result depends on, cheap to collect: a few stat calls and one small file read
+   */
+  static Properties state(Set<String> systemProperties, Set<Path> files) {
+    Properties state = new Properties();
+    state.setProperty("state.bootId", bootId());
+    for (String property : systemProperties) {
+      state.setProperty("state.property." + property, String.valueOf(System.getProperty(property)));
+    }
+    for (Path file : files) {
+      state.setProperty("state.file." + file, stat(file));
+    }
+    return state;
+  }
+
+  /**
+   * names of all system properties the catalog matches against, same as {@link PlatformWatcher#watchedFiles(Collection)} for files
+   */
+  static Set<String> systemProperties(Collection<? extends OS> osList) {
+    Set<String> properties = new LinkedHashSet<>();
+    for (Attribute<?> attribute : CompiledCatalog.cached(osList).attributes()) {
+      if (attribute instanceof SystemProperty) {
+        properties.add(((SystemProperty) attribute).name());
+      }
+    }
+    return properties;
+  }
+
+  private static String bootId() {
+    try {
+      return new String(Files.readAllBytes(BOOT_ID), StandardCharsets.UTF_8).trim();
+    } catch (IOException | SecurityException ex) {
+      return "";
+    }
+  }
+
+  private static String stat(Path file) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      return attributes.size() + "|" + attributes.lastModifiedTime().toMillis() + "|" + attributes.fileKey();
+    } catch (NoSuchFileException nsx) {
+      return "missing";
+    } catch (IOException | SecurityException ex) {
+      return "unreadable";
+    }
+  }
+
+  private static boolean isValid(Properties entry, Properties state) {
+    if (!FORMAT_VERSION.equals(entry.getProperty("format"))) {
+      return false;
+    }
+    for (String key : state.stringPropertyNames()) {
+      if (!state.getProperty(key).equals(entry.getProperty(key))) {
+        logger.debug("cached platform outdated: {}", key);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Optional<Properties> read(Path cacheFile) {
+    if (!Files.isRegularFile(cacheFile, LinkOption.NOFOLLOW_LINKS)) {
+      return Optional.empty();
+    }
+    try (InputStream in = Files.newInputStream(cacheFile)) {
+      Properties entry = new Properties();
+      entry.load(in);
+      return Optional.of(entry);
+    } catch (IOException | IllegalArgumentException ex) {
+      logger.debug("could not read {}", cacheFile, ex);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * removes cache files of other catalogs written before the last boot (they can never be valid again)
+   * or not written for {@link #MAX_AGE}, and temp files left by crashed writers
+   */
+  static void prune(Path directory, Path current, String bootId) {
+    long oldest = System.currentTimeMillis() - MAX_AGE.toMillis();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*")) {
+      for (Path file : files) {
+        if (file.equals(current)) {
+          continue;
+        }
+        try {
+          boolean outdated = Files.getLastModifiedTime(file, LinkOption.NOFOLLOW_LINKS).toMillis() < oldest;
+          boolean otherBoot = file.getFileName().toString().endsWith(SUFFIX)
+            && read(file).map(entry -> !bootId.equals(entry.getProperty("state.bootId"))).orElse(false);
+          if (outdated || otherBoot) {
+            Files.deleteIfExists(file);
+          }
+        } catch (IOException | SecurityException ex) {
+          logger.debug("could not prune {}", file, ex);
+        }
+      }
+    } catch (IOException | SecurityException ex) {
+      logger.debug("could not prune {}", directory, ex);
+    }
+  }
+
+  /**
+   * written to a temp file in the same directory and moved in place, so concurrent readers
+   * and writers only ever see complete files
+   */
+  private static void write(Path cacheFile, Platform platform, Properties state) {
+    Properties entry = new Properties();
+    entry.putAll(state);
+    entry.setProperty("format", FORMAT_VERSION);
+    entry.setProperty("platform.os", platform.operatingSystem().name());
+    entry.setProperty("platform.architecture", String.valueOf(platform.architecture()));
+    platform.distribution().ifPresent(it -> entry.setProperty("platform.distribution", it.name()));
+    platform.version().ifPresent(it -> entry.setProperty("platform.version", it.name()));
+
+    Path temp = null;
+    try {
+      Files.createDirectories(cacheFile.getParent());
+      temp = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        entry.store(out, "de.flapdoodle.os detection cache");
+      }
+      try {
+        Files.move(temp, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ax) {
+        Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException | SecurityException ex) {
+      logger.debug("could not write {}", cacheFile, ex);
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException ignore) {
+          // best effort
+        }
+      }
+    }
+  }
+}
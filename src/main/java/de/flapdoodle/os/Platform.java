@@ -16,18 +16,34 @@
  */
 package de.flapdoodle.os;
 
+import de.flapdoodle.os.common.HasPriority;
+import de.flapdoodle.os.common.PeculiarityScore;
+import de.flapdoodle.os.common.attributes.Attribute;
 import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
-import de.flapdoodle.os.common.attributes.LoggingWrapper;
+import de.flapdoodle.os.common.attributes.CachingWrapper;
 import de.flapdoodle.os.common.collections.Immutables;
+import de.flapdoodle.os.common.concurrent.DefaultExecutor;
+import de.flapdoodle.os.common.jfr.Jfr;
+import de.flapdoodle.os.common.listener.DetectionListener.Phase;
+import de.flapdoodle.os.common.listener.DetectionListeners;
+import de.flapdoodle.os.common.listener.DetectionTrace;
+import de.flapdoodle.os.common.listener.ExplainRecorder;
 import de.flapdoodle.os.common.matcher.MatcherLookup;
 import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -45,48 +61,168 @@ public abstract class Platform {
 
   public static final Logger logger = LoggerFactory.getLogger(Platform.class);
 
+  // events kept for the trace of a failed detection, if explain is not enabled
+  private static final int TRACE_CAPACITY = 256;
+
   public static Platform detect(Collection<? extends OS> osList) {
     Optional<Platform> override = override(osList);
     if (override.isPresent()) return override.get();
 
-    AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup.systemDefault();
-    MatcherLookup matcherLookup = MatcherLookup.systemDefault();
-
-    boolean explain = explain();
-    if (explain) {
-      attributeExtractorLookup= LoggingWrapper.wrap(attributeExtractorLookup);
-      matcherLookup = LoggingWrapper.wrap(matcherLookup);
+    if (daemon()) {
+      Optional<Platform> served = PlatformDaemonClient.query(osList);
+      if (served.isPresent()) return served.get();
     }
-    Platform result = detect(osList, attributeExtractorLookup, matcherLookup);
-    if (explain) {
-			logger.info("Platform.detect() -> {}", result);
-    }
-    return result;
+
+    return detectInProcess(osList);
+  }
+
+  /**
+   * same as {@link #detect(Collection)}, but never asks a {@link PlatformDaemon},
+   * the daemon itself must use this, or it would answer its own queries with its stale platform
+   */
+  static Platform detectInProcess(Collection<? extends OS> osList) {
+    Optional<Platform> override = override(osList);
+    if (override.isPresent()) return override.get();
+
+    return explained("Platform.detect()", (attributeExtractorLookup, matcherLookup) -> detect(osList, attributeExtractorLookup, matcherLookup));
   }
 
   public static List<Platform> guess(Collection<? extends OS> osList) {
     Optional<Platform> override = override(osList);
     if (override.isPresent()) return Immutables.asList(override.get());
 
-    AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup.systemDefault();
-    MatcherLookup matcherLookup = MatcherLookup.systemDefault();
+    return explained("Platform.guess()", (attributeExtractorLookup, matcherLookup) -> guess(osList, attributeExtractorLookup, matcherLookup));
+  }
+
+  public static List<RankedPlatform> rank(Collection<? extends OS> osList, int k) {
+    Optional<Platform> override = override(osList);
+    if (override.isPresent()) return Immutables.asList(RankedPlatform.of(override.get(), RankedPlatform.MAX_SCORE));
 
-    boolean explain = explain();
-    if (explain) {
-      attributeExtractorLookup= LoggingWrapper.wrap(attributeExtractorLookup);
-      matcherLookup = LoggingWrapper.wrap(matcherLookup);
-    }
-    List<Platform> result = guess(osList, attributeExtractorLookup, matcherLookup);
-    if (explain) {
-			logger.info("Platform.guess() -> {}", result);
+    return explained("Platform.rank()", (attributeExtractorLookup, matcherLookup) -> rank(osList, attributeExtractorLookup, matcherLookup, k));
+  }
+
+  public static CompletableFuture<Platform> detectAsync(Collection<? extends OS> osList) {
+    return detectAsync(osList, DefaultExecutor.get());
+  }
+
+  public static CompletableFuture<Platform> detectAsync(Collection<? extends OS> osList, Executor executor) {
+    Optional<Platform> override = override(osList);
+    if (override.isPresent()) return CompletableFuture.completedFuture(override.get());
+
+    return async(osList, DetectionListeners.wrap(AttributeExtractorLookup.systemDefault()), MatcherLookup.systemDefault(), executor,
+      (attributeExtractorLookup, matcherLookup) -> detect(osList, attributeExtractorLookup, matcherLookup));
+  }
+
+  public static CompletableFuture<List<Platform>> guessAsync(Collection<? extends OS> osList) {
+    return guessAsync(osList, DefaultExecutor.get());
+  }
+
+  public static CompletableFuture<List<Platform>> guessAsync(Collection<? extends OS> osList, Executor executor) {
+    Optional<Platform> override = override(osList);
+    if (override.isPresent()) return CompletableFuture.completedFuture(Immutables.asList(override.get()));
+
+    return async(osList, DetectionListeners.wrap(AttributeExtractorLookup.systemDefault()), MatcherLookup.systemDefault(), executor,
+      (attributeExtractorLookup, matcherLookup) -> guess(osList, attributeExtractorLookup, matcherLookup));
+  }
+
+  /**
+   * extracts the os and architecture attributes concurrently, then the distribution and version attributes
+   * of the matching os entries only, and runs the detection on the prefetched values
+   */
+  static <T> CompletableFuture<T> async(
+    Collection<? extends OS> osList,
+    AttributeExtractorLookup attributeExtractorLookup,
+    MatcherLookup matcherLookup,
+    Executor executor,
+    BiFunction<AttributeExtractorLookup, MatcherLookup, T> detection
+  ) {
+    CompiledCatalog catalog = CompiledCatalog.cached(osList);
+    AttributeExtractorLookup prefetched = CachingWrapper.wrap(attributeExtractorLookup);
+
+    return prefetch(prefetched, catalog.osAttributes(), executor)
+      .thenCompose(ignore -> prefetch(prefetched, catalog.distributionAttributes(candidates(osList, prefetched, matcherLookup)), executor))
+      .thenApplyAsync(ignore -> detection.apply(prefetched, matcherLookup), executor);
+  }
+
+  private static CompletableFuture<Void> prefetch(AttributeExtractorLookup attributeExtractorLookup, Collection<Attribute<?>> attributes, Executor executor) {
+    CompletableFuture<?>[] reads = attributes.stream()
+      .map(attribute -> CompletableFuture.runAsync(() -> extract(attributeExtractorLookup, attribute), executor)
+        // detection decides if a failing attribute is needed at all
+        .exceptionally(ex -> null))
+      .toArray(CompletableFuture[]::new);
+    return CompletableFuture.allOf(reads);
+  }
+
+  /**
+   * os entries which could match, an os which can not be evaluated is kept
+   */
+  private static List<OS> candidates(Collection<? extends OS> osList, AttributeExtractorLookup attributeExtractorLookup, MatcherLookup matcherLookup) {
+    List<OS> candidates = new ArrayList<>();
+    for (OS os : osList) {
+      try {
+        if (matches(attributeExtractorLookup, matcherLookup, os.pecularities())) {
+          candidates.add(os);
+        }
+      } catch (RuntimeException rx) {
+        candidates.add(os);
+      }
     }
-    return result;
+    return candidates;
+  }
+
+  private static <T> Optional<T> extract(AttributeExtractorLookup attributeExtractorLookup, Attribute<T> attribute) {
+    return attributeExtractorLookup.<T, Attribute<T>>extractor(attribute)
+      .flatMap(extractor -> extractor.extract(attribute));
+  }
+
+  private static boolean daemon() {
+    return "true".equals(System.getProperty("de.flapdoodle.os.daemon"));
   }
 
   private static boolean explain() {
     return "true".equals(System.getProperty("de.flapdoodle.os.explain"));
   }
 
+  private static boolean trace() {
+    return !"false".equals(System.getProperty("de.flapdoodle.os.trace"));
+  }
+
+  /**
+   * all events of the detection are recorded for this call only (disable with -Dde.flapdoodle.os.trace=false),
+   * if no or more than one os or architecture matched, the recorded events are attached to the exception as suppressed {@link DetectionTrace}.
+   * with explain enabled, a larger buffer is used and the events are logged once, as warning if the detection failed
+   */
+  private static <T> T explained(String label, BiFunction<AttributeExtractorLookup, MatcherLookup, T> detection) {
+    boolean explain = explain();
+    if (!explain && !trace()) {
+      return detection.apply(DetectionListeners.wrap(AttributeExtractorLookup.systemDefault()), MatcherLookup.systemDefault());
+    }
+
+    ExplainRecorder recorder = new ExplainRecorder(explain ? ExplainRecorder.DEFAULT_CAPACITY : TRACE_CAPACITY);
+    try {
+      T result = DetectionListeners.with(recorder,
+        () -> detection.apply(DetectionListeners.wrap(AttributeExtractorLookup.systemDefault()), MatcherLookup.systemDefault()));
+      if (explain) {
+        logger.info("{} -> {}{}{}", label, result, System.lineSeparator(), recorder.dump());
+      }
+      return result;
+    } catch (IllegalArgumentException ix) {
+      if (explain) {
+        logger.warn("{} failed: {}{}{}", label, ix.getMessage(), System.lineSeparator(), recorder.dump());
+      }
+      ix.addSuppressed(new DetectionTrace(label, recorder));
+      throw ix;
+    }
+  }
+
+  /**
+   * caches must not store or return a platform while -Dde.flapdoodle.os.override is set
+   */
+  static boolean isOverridden() {
+    String override = System.getProperty("de.flapdoodle.os.override");
+    return override != null && !override.trim().isEmpty();
+  }
+
   private static Optional<Platform> override(Collection<? extends OS> osList) {
     String override = System.getProperty("de.flapdoodle.os.override");
     if (override!=null && !override.trim().isEmpty()) {
@@ -96,6 +232,51 @@ public abstract class Platform {
     return Optional.empty();
   }
 
+  /**
+   * finds the catalog entries of a platform stored by name (architecture by its string representation)
+   * @return empty if one of the entries is not part of the catalog
+   */
+  static Optional<Platform> resolve(Collection<? extends OS> osList, String osName, String architectureName, String distributionName, String versionName) {
+    Optional<? extends OS> os = osList.stream()
+      .filter(it -> it.name().equals(osName))
+      .findFirst();
+    if (!os.isPresent()) {
+      return Optional.empty();
+    }
+
+    Optional<? extends Architecture> architecture = os.get().architectures().stream()
+      .filter(it -> String.valueOf(it).equals(architectureName))
+      .findFirst();
+    if (!architecture.isPresent()) {
+      return Optional.empty();
+    }
+
+    ImmutablePlatform.Builder builder = ImmutablePlatform.builder()
+      .operatingSystem(os.get())
+      .architecture(architecture.get());
+
+    if (distributionName != null) {
+      Optional<? extends Distribution> distribution = os.get().distributions().stream()
+        .filter(it -> it.name().equals(distributionName))
+        .findFirst();
+      if (!distribution.isPresent()) {
+        return Optional.empty();
+      }
+      builder.distribution(distribution.get());
+
+      if (versionName != null) {
+        Optional<? extends Version> version = distribution.get().versions().stream()
+          .filter(it -> it.name().equals(versionName))
+          .findFirst();
+        if (!version.isPresent()) {
+          return Optional.empty();
+        }
+        builder.version(version.get());
+      }
+    }
+    return Optional.of(builder.build());
+  }
+
   static Platform parseOverride(Collection<? extends OS> osList, String override) {
     ImmutablePlatform.Builder builder = ImmutablePlatform.builder();
     List<String> parts = Arrays.asList(override.split("\\|"));
@@ -163,30 +344,39 @@ public abstract class Platform {
     }
   }
 
-  static Platform detect(Collection<? extends OS> osList, AttributeExtractorLookup attributeExtractorLookup, MatcherLookup matcherLookup) {
-    OS os = match(attributeExtractorLookup, matcherLookup, osList);
-    Architecture architecture = match(attributeExtractorLookup, matcherLookup, os.architectures());
+  static Platform detect(Collection<? extends OS> osList, AttributeExtractorLookup lookup, MatcherLookup matcherLookup) {
+    Object event = Jfr.beginPlatformDetection();
+    AttributeExtractorLookup attributeExtractorLookup = CachingWrapper.wrap(lookup);
+
+    OS os = DetectionListeners.phase(Phase.OS, () -> match(attributeExtractorLookup, matcherLookup, osList));
+    Architecture architecture = DetectionListeners.phase(Phase.ARCHITECTURE, () -> match(attributeExtractorLookup, matcherLookup, os.architectures()));
 
-    Optional<Distribution> dist = find(attributeExtractorLookup, matcherLookup, os.distributions());
-    Optional<Version> version = dist.flatMap(d -> find(attributeExtractorLookup, matcherLookup, d.versions()));
+    Optional<Distribution> dist = DetectionListeners.phase(Phase.DISTRIBUTION, () -> find(attributeExtractorLookup, matcherLookup, os.distributions()));
+    Optional<Version> version = DetectionListeners.phase(Phase.VERSION, () -> dist.flatMap(d -> find(attributeExtractorLookup, matcherLookup, d.versions())));
 
-    return ImmutablePlatform.builder()
+    Platform result = ImmutablePlatform.builder()
       .operatingSystem(os)
       .distribution(dist)
       .version(version)
       .architecture(architecture)
       .build();
+
+    Jfr.commitPlatformDetection(event, "detect", result, 1);
+    return result;
   }
 
-  static List<Platform> guess(Collection<? extends OS> osList, AttributeExtractorLookup attributeExtractorLookup, MatcherLookup matcherLookup) {
-    OS os = match(attributeExtractorLookup, matcherLookup, osList);
-    Architecture architecture = match(attributeExtractorLookup, matcherLookup, os.architectures());
+  static List<Platform> guess(Collection<? extends OS> osList, AttributeExtractorLookup lookup, MatcherLookup matcherLookup) {
+    Object event = Jfr.beginPlatformDetection();
+    AttributeExtractorLookup attributeExtractorLookup = CachingWrapper.wrap(lookup);
+
+    OS os = DetectionListeners.phase(Phase.OS, () -> match(attributeExtractorLookup, matcherLookup, osList));
+    Architecture architecture = DetectionListeners.phase(Phase.ARCHITECTURE, () -> match(attributeExtractorLookup, matcherLookup, os.architectures()));
 
-    List<? extends Distribution> dists = matching(attributeExtractorLookup, matcherLookup, os.distributions());
+    List<? extends Distribution> dists = DetectionListeners.phase(Phase.DISTRIBUTION, () -> matching(attributeExtractorLookup, matcherLookup, os.distributions()));
 
     List<Platform> platforms = dists.stream()
       .flatMap(dist -> {
-        List<? extends Version> versions = matching(attributeExtractorLookup, matcherLookup, dist.versions());
+        List<? extends Version> versions = DetectionListeners.phase(Phase.VERSION, () -> matching(attributeExtractorLookup, matcherLookup, dist.versions()));
 
         return !versions.isEmpty()
           ? versions
@@ -213,6 +403,94 @@ public abstract class Platform {
       .architecture(architecture)
       .build());
 
+    Jfr.commitPlatformDetection(event, "guess", matches);
     return matches;
   }
+
+  /**
+   * top k candidates, best score first, equal scores ordered by version priority.
+   * distributions are visited best first and the versions of a distribution are only evaluated
+   * if the distribution can still enter the top k.
+   */
+  static List<RankedPlatform> rank(Collection<? extends OS> osList, AttributeExtractorLookup lookup, MatcherLookup matcherLookup, int k) {
+    if (k < 1) throw new IllegalArgumentException("k must be greater than zero: " + k);
+
+    AttributeExtractorLookup attributeExtractorLookup = CachingWrapper.wrap(lookup);
+
+    OS os = DetectionListeners.phase(Phase.OS, () -> match(attributeExtractorLookup, matcherLookup, osList));
+    Architecture architecture = DetectionListeners.phase(Phase.ARCHITECTURE, () -> match(attributeExtractorLookup, matcherLookup, os.architectures()));
+
+    List<Distribution> dists = new ArrayList<>();
+    Map<Distribution, Double> distScores = new IdentityHashMap<>();
+    for (Distribution dist : os.distributions()) {
+      double score = PeculiarityScore.of(attributeExtractorLookup, matcherLookup, dist.pecularities());
+      if (score > PeculiarityScore.NO_MATCH) {
+        dists.add(dist);
+        distScores.put(dist, score);
+      }
+    }
+    dists.sort(Comparator.<Distribution, Double>comparing(distScores::get).reversed());
+
+    Comparator<RankedPlatform> ranking = Comparator.comparingDouble(RankedPlatform::score)
+      .thenComparingInt(it -> HasPriority.priority(it.platform().version().orElse(null)))
+      .reversed();
+
+    List<RankedPlatform> top = new ArrayList<>();
+    for (Distribution dist : dists) {
+      double distScore = distScores.get(dist);
+      if (top.size() == k) {
+        RankedPlatform last = top.get(k - 1);
+        if (last.score() > distScore + PeculiarityScore.MATCH) {
+          break;
+        }
+        if (!canEnter(last, dist, distScore)) {
+          continue;
+        }
+      }
+
+      List<RankedPlatform> candidates = new ArrayList<>();
+      for (Version version : dist.versions()) {
+        double versionScore = PeculiarityScore.of(attributeExtractorLookup, matcherLookup, version.pecularities());
+        if (versionScore > PeculiarityScore.NO_MATCH) {
+          candidates.add(RankedPlatform.of(ImmutablePlatform.builder()
+            .operatingSystem(os)
+            .distribution(dist)
+            .architecture(architecture)
+            .version(version)
+            .build(), distScore + versionScore));
+        }
+      }
+      if (candidates.isEmpty()) {
+        candidates.add(RankedPlatform.of(ImmutablePlatform.builder()
+          .operatingSystem(os)
+          .distribution(dist)
+          .architecture(architecture)
+          .build(), distScore));
+      }
+
+      top.addAll(candidates);
+      top.sort(ranking);
+      if (top.size() > k) {
+        top.subList(k, top.size()).clear();
+      }
+    }
+
+    return !top.isEmpty()
+      ? top
+      : Immutables.asNonEmptyList(RankedPlatform.of(ImmutablePlatform.builder()
+      .operatingSystem(os)
+      .architecture(architecture)
+      .build(), PeculiarityScore.NO_MATCH));
+  }
+
+  private static boolean canEnter(RankedPlatform last, Distribution dist, double distScore) {
+    double bound = dist.versions().isEmpty()
+      ? distScore
+      : distScore + PeculiarityScore.MATCH;
+    if (last.score() != bound) {
+      return last.score() < bound;
+    }
+    int lastPriority = HasPriority.priority(last.platform().version().orElse(null));
+    return dist.versions().stream().anyMatch(version -> HasPriority.priority(version) > lastPriority);
+  }
 }
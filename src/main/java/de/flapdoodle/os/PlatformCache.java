@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.listener.DetectionListener;
+import de.flapdoodle.os.common.listener.DetectionListeners;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * process wide cache for {@link Platform#detect(Collection)}, keyed by the os catalog.
+ * concurrent callers for the same catalog wait for a single detection run.
+ * the cache is an immutable map snapshot which is replaced with compare and set on every change,
+ * so a cache hit is a volatile read and a map lookup without any lock.
+ * with -Dde.flapdoodle.os.override set the cache is neither read nor written.
+ */
+public abstract class PlatformCache {
+
+  private static final AtomicReference<Map<List<OS>, CompletableFuture<Platform>>> snapshot =
+    new AtomicReference<>(Collections.emptyMap());
+
+  private PlatformCache() {
+    // no instance
+  }
+
+  public static Platform detect(Collection<? extends OS> osList) {
+    return detect(osList, () -> Platform.detect(osList));
+  }
+
+  public static void invalidate() {
+    snapshot.set(Collections.emptyMap());
+  }
+
+  public static void invalidate(Collection<? extends OS> osList) {
+    List<?> key = lookupKeyOf(osList);
+    Map<List<OS>, CompletableFuture<Platform>> current;
+    do {
+      current = snapshot.get();
+      if (!current.containsKey(key)) {
+        return;
+      }
+    } while (!snapshot.compareAndSet(current, without(current, key)));
+  }
+
+  static Platform detect(Collection<? extends OS> osList, Supplier<Platform> detection) {
+    if (Platform.isOverridden()) {
+      return detection.get();
+    }
+
+    List<?> lookupKey = lookupKeyOf(osList);
+
+    CompletableFuture<Platform> cached = snapshot.get().get(lookupKey);
+    if (cached != null) {
+      DetectionListeners.current().cacheHit(DetectionListener.Cache.PLATFORM);
+      return join(cached);
+    }
+
+    List<OS> key = Collections.unmodifiableList(new ArrayList<>(osList));
+    CompletableFuture<Platform> inFlight = new CompletableFuture<>();
+    Map<List<OS>, CompletableFuture<Platform>> current;
+    do {
+      current = snapshot.get();
+      cached = current.get(key);
+      if (cached != null) {
+        DetectionListeners.current().cacheHit(DetectionListener.Cache.PLATFORM);
+        return join(cached);
+      }
+    } while (!snapshot.compareAndSet(current, with(current, key, inFlight)));
+
+    DetectionListeners.current().cacheMiss(DetectionListener.Cache.PLATFORM);
+    try {
+      inFlight.complete(detection.get());
+    } catch (Throwable t) {
+      // errors (e.g. from catalog enum initialization) must not leave waiting callers blocked
+      remove(key, inFlight);
+      inFlight.completeExceptionally(t);
+    }
+    return join(inFlight);
+  }
+
+  private static void remove(List<OS> key, CompletableFuture<Platform> future) {
+    Map<List<OS>, CompletableFuture<Platform>> current;
+    do {
+      current = snapshot.get();
+      if (current.get(key) != future) {
+        return;
+      }
+    } while (!snapshot.compareAndSet(current, without(current, key)));
+  }
+
+  private static Map<List<OS>, CompletableFuture<Platform>> with(
+    Map<List<OS>, CompletableFuture<Platform>> map,
+    List<OS> key,
+    CompletableFuture<Platform> value
+  ) {
+    Map<List<OS>, CompletableFuture<Platform>> copy = new HashMap<>(map);
+    copy.put(key, value);
+    return Collections.unmodifiableMap(copy);
+  }
+
+  private static Map<List<OS>, CompletableFuture<Platform>> without(Map<List<OS>, CompletableFuture<Platform>> map, Object key) {
+    Map<List<OS>, CompletableFuture<Platform>> copy = new HashMap<>(map);
+    copy.remove(key);
+    return Collections.unmodifiableMap(copy);
+  }
+
+  private static Platform join(CompletableFuture<Platform> future) {
+    try {
+      return future.join();
+    } catch (CompletionException cx) {
+      if (cx.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) cx.getCause();
+      }
+      if (cx.getCause() instanceof Error) {
+        throw (Error) cx.getCause();
+      }
+      throw cx;
+    }
+  }
+
+  /**
+   * list equality does not depend on the list implementation, so a list can be used for lookups without a copy
+   */
+  private static List<?> lookupKeyOf(Collection<? extends OS> osList) {
+    return osList instanceof List
+      ? (List<?>) osList
+      : new ArrayList<>(osList);
+  }
+}
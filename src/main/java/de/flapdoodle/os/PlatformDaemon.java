@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * answers platform queries of other jvms on the same host over a unix domain socket (java 16+).
+ * the daemon detects once and keeps the result up to date with a {@link PlatformWatcher}.
+ * all connections are served by one non blocking thread, a connection is closed if it is not answered within
+ * {@link #CONNECTION_TIMEOUT_MILLIS}, so a client which does not send its request can not block other clients.
+ * <p>
+ * protocol, strings are an unsigned short byte length (0xffff for absent) followed by utf-8 bytes:
+ * <pre>
+ * request:  version (byte), catalog fingerprint (string)
+ * response: status (byte, 0: ok), os, architecture, distribution, version (strings, only if ok)
+ * </pre>
+ */
+public final class PlatformDaemon implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(PlatformDaemon.class);
+
+  static final byte PROTOCOL_VERSION = 1;
+  static final byte OK = 0;
+  static final byte UNKNOWN_CATALOG = 1;
+  static final byte FAILED = 2;
+
+  static final long CONNECTION_TIMEOUT_MILLIS = 1000;
+
+  private static final int ABSENT = 0xffff;
+
+  private final Path socket;
+  private final String fingerprint;
+  private final Supplier<Platform> platform;
+  private final Closeable resources;
+  private final ServerSocketChannel server;
+  private final Selector selector;
+  private final Thread thread;
+
+  private volatile boolean running = true;
+
+  private PlatformDaemon(Path socket, String fingerprint, Supplier<Platform> platform, Closeable resources) throws IOException {
+    this.socket = socket;
+    this.fingerprint = fingerprint;
+    this.platform = platform;
+    this.resources = resources;
+    this.server = bind(socket);
+    Selector selector = null;
+    try {
+      server.configureBlocking(false);
+      selector = Selector.open();
+      server.register(selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException | RuntimeException ex) {
+      if (selector != null) {
+        selector.close();
+      }
+      server.close();
+      Files.deleteIfExists(socket);
+      throw ex;
+    }
+    this.selector = selector;
+    this.thread = new Thread(this::serve, "platform-daemon");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  public static boolean isSupported() {
+    return UnixSockets.isSupported();
+  }
+
+  /**
+   * $XDG_RUNTIME_DIR/de.flapdoodle.os.sock, override with -Dde.flapdoodle.os.daemon.socket.
+   * there is no fallback to a shared directory like /tmp, where another user could create the socket first.
+   * @return empty if neither is set
+   */
+  public static Optional<Path> defaultSocket() {
+    String socket = System.getProperty("de.flapdoodle.os.daemon.socket");
+    if (socket != null && !socket.trim().isEmpty()) {
+      return Optional.of(Paths.get(socket));
+    }
+    String runtimeDir = System.getenv("XDG_RUNTIME_DIR");
+    if (runtimeDir != null && !runtimeDir.trim().isEmpty()) {
+      return Optional.of(Paths.get(runtimeDir, "de.flapdoodle.os.sock"));
+    }
+    return Optional.empty();
+  }
+
+  public static PlatformDaemon start(Collection<? extends OS> osList) throws IOException {
+    Optional<Path> socket = defaultSocket();
+    if (!socket.isPresent()) {
+      throw new IOException("XDG_RUNTIME_DIR is not set, pass a socket or set -Dde.flapdoodle.os.daemon.socket");
+    }
+    return start(osList, socket.get());
+  }
+
+  public static PlatformDaemon start(Collection<? extends OS> osList, Path socket) throws IOException {
+    PlatformWatcher watcher = PlatformWatcher.start(osList);
+    try {
+      return new PlatformDaemon(socket, CompiledCatalog.cached(osList).fingerprint(), watcher::platform, watcher);
+    } catch (IOException | RuntimeException ex) {
+      watcher.close();
+      throw ex;
+    }
+  }
+
+  static PlatformDaemon start(Path socket, String fingerprint, Supplier<Platform> platform) throws IOException {
+    return new PlatformDaemon(socket, fingerprint, platform, () -> {});
+  }
+
+  public Path socket() {
+    return socket;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      running = false;
+      selector.wakeup();
+      try {
+        thread.join();
+      } catch (InterruptedException ix) {
+        Thread.currentThread().interrupt();
+      }
+      server.close();
+      resources.close();
+    } finally {
+      Files.deleteIfExists(socket);
+    }
+  }
+
+  private void serve() {
+    try {
+      while (running) {
+        selector.select(CONNECTION_TIMEOUT_MILLIS);
+        Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+        while (selected.hasNext()) {
+          SelectionKey key = selected.next();
+          selected.remove();
+          try {
+            if (key.isAcceptable()) {
+              accept();
+            } else {
+              serve(key);
+            }
+          } catch (IOException | RuntimeException ex) {
+            logger.debug("could not answer request", ex);
+            if (key.channel() != server) {
+              closeQuietly(key.channel());
+            }
+          }
+        }
+        closeExpired();
+      }
+    } catch (IOException | RuntimeException ex) {
+      logger.warn("daemon stopped", ex);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        closeQuietly(key.channel());
+      }
+      closeQuietly(selector);
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel client = server.accept();
+    if (client != null) {
+      client.configureBlocking(false);
+      client.register(selector, SelectionKey.OP_READ, new Connection(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECTION_TIMEOUT_MILLIS)));
+    }
+  }
+
+  private void serve(SelectionKey key) throws IOException {
+    SocketChannel client = (SocketChannel) key.channel();
+    Connection connection = (Connection) key.attachment();
+    if (connection.response == null) {
+      if (client.read(connection.request) == -1) {
+        client.close();
+        return;
+      }
+      if (!isComplete(connection.request)) {
+        if (!connection.request.hasRemaining()) {
+          throw new IOException("request too large");
+        }
+        return;
+      }
+      connection.request.flip();
+      connection.response = answer(connection.request);
+      key.interestOps(SelectionKey.OP_WRITE);
+    }
+    client.write(connection.response);
+    if (!connection.response.hasRemaining()) {
+      client.close();
+    }
+  }
+
+  private void closeExpired() {
+    long now = System.nanoTime();
+    for (SelectionKey key : selector.keys()) {
+      Object connection = key.attachment();
+      if (connection instanceof Connection && now - ((Connection) connection).deadline > 0) {
+        logger.debug("no request within {}ms, closing connection", CONNECTION_TIMEOUT_MILLIS);
+        closeQuietly(key.channel());
+      }
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException iox) {
+      logger.debug("could not close {}", closeable, iox);
+    }
+  }
+
+  private ByteBuffer answer(ByteBuffer request) {
+    ByteBuffer response = ByteBuffer.allocate(1024);
+    if (request.remaining() < 1 || request.get() != PROTOCOL_VERSION || !fingerprint.equals(readString(request))) {
+      response.put(UNKNOWN_CATALOG);
+    } else {
+      Platform current;
+      try {
+        current = platform.get();
+      } catch (RuntimeException rx) {
+        current = null;
+      }
+      if (current != null) {
+        response.put(OK);
+        writeString(response, current.operatingSystem().name());
+        writeString(response, String.valueOf(current.architecture()));
+        writeString(response, current.distribution().map(Distribution::name).orElse(null));
+        writeString(response, current.version().map(Version::name).orElse(null));
+      } else {
+        response.put(FAILED);
+      }
+    }
+    response.flip();
+    return response;
+  }
+
+  private static boolean isComplete(ByteBuffer request) {
+    if (request.position() < 3) {
+      return false;
+    }
+    int length = ((request.get(1) & 0xff) << 8) | (request.get(2) & 0xff);
+    return request.position() >= 3 + length;
+  }
+
+  static ByteBuffer request(String fingerprint) {
+    ByteBuffer request = ByteBuffer.allocate(256);
+    request.put(PROTOCOL_VERSION);
+    writeString(request, fingerprint);
+    request.flip();
+    return request;
+  }
+
+  static void writeString(ByteBuffer buffer, String value) {
+    if (value == null) {
+      buffer.putShort((short) ABSENT);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length >= ABSENT) {
+      throw new IllegalArgumentException("string too long: " + bytes.length);
+    }
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+
+  /**
+   * @return null if absent
+   */
+  static String readString(ByteBuffer buffer) {
+    int length = buffer.getShort() & 0xffff;
+    if (length == ABSENT) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static ServerSocketChannel bind(Path socket) throws IOException {
+    if (!UnixSockets.isSupported()) {
+      throw new IOException("unix domain sockets need java 16 or newer");
+    }
+    if (Files.exists(socket)) {
+      if (PlatformDaemonClient.isAlive(socket)) {
+        throw new IOException("daemon already running: " + socket);
+      }
+      Files.delete(socket);
+    }
+    return UnixSockets.bind(socket);
+  }
+
+  static Optional<Platform> resolve(Collection<? extends OS> osList, ByteBuffer response) {
+    if (response.remaining() < 1 || response.get() != OK) {
+      return Optional.empty();
+    }
+    String os = readString(response);
+    String architecture = readString(response);
+    String distribution = readString(response);
+    String version = readString(response);
+    return Platform.resolve(osList, os, architecture, distribution, version);
+  }
+
+  private static final class Connection {
+    private final long deadline;
+    private final ByteBuffer request = ByteBuffer.allocate(256);
+    private ByteBuffer response;
+
+    private Connection(long deadline) {
+      this.deadline = deadline;
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * asks a {@link PlatformDaemon} for the platform, gives up after a short timeout
+ * (default 500us, -Dde.flapdoodle.os.daemon.timeoutMicros) so that the caller can detect in process
+ */
+public abstract class PlatformDaemonClient {
+
+  private static final Logger logger = LoggerFactory.getLogger(PlatformDaemonClient.class);
+
+  static final long DEFAULT_TIMEOUT_MICROS = 500;
+
+  // between two selectNow calls of a wait below one millisecond
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+  private PlatformDaemonClient() {
+    // no instance
+  }
+
+  public static Optional<Platform> query(Collection<? extends OS> osList) {
+    long timeoutNanos = TimeUnit.MICROSECONDS.toNanos(timeoutMicros());
+    return PlatformDaemon.defaultSocket().flatMap(socket -> query(osList, socket, timeoutNanos));
+  }
+
+  /**
+   * the deadline covers connect, write and read, every step waits in a selector instead of spinning
+   */
+  static Optional<Platform> query(Collection<? extends OS> osList, Path socket, long timeoutNanos) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    if (!UnixSockets.isSupported() || !Files.exists(socket)) {
+      return Optional.empty();
+    }
+    ByteBuffer request = PlatformDaemon.request(CompiledCatalog.cached(osList).fingerprint());
+    ByteBuffer response = ByteBuffer.allocate(1024);
+
+    try (SocketChannel channel = UnixSockets.open(); Selector selector = Selector.open()) {
+      channel.configureBlocking(false);
+      boolean connected = channel.connect(UnixSockets.address(socket));
+      SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+
+      while (true) {
+        if (!connected) {
+          connected = channel.finishConnect();
+        }
+        if (connected && request.hasRemaining()) {
+          channel.write(request);
+        }
+        if (connected && !request.hasRemaining()) {
+          if (channel.read(response) == -1) {
+            break;
+          }
+          if (!response.hasRemaining()) {
+            throw new IOException("response too large");
+          }
+        }
+
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          logger.debug("no answer from {} within {}ns", socket, timeoutNanos);
+          return Optional.empty();
+        }
+        key.interestOps(!connected
+          ? SelectionKey.OP_CONNECT
+          : request.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        await(selector, remaining);
+        selector.selectedKeys().clear();
+      }
+      response.flip();
+      return PlatformDaemon.resolve(osList, response);
+    } catch (IOException | RuntimeException ex) {
+      logger.debug("could not query {}", socket, ex);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * select(timeout) waits whole milliseconds and select(0) waits forever, so a wait of less than a millisecond
+   * (with the default timeout every wait) polls with selectNow and parks for a few microseconds if nothing is ready
+   */
+  static void await(Selector selector, long remainingNanos) throws IOException {
+    long millis = TimeUnit.NANOSECONDS.toMillis(remainingNanos);
+    if (millis > 0) {
+      selector.select(millis);
+    } else if (selector.selectNow() == 0) {
+      LockSupport.parkNanos(Math.min(remainingNanos, PARK_NANOS));
+    }
+  }
+
+  static boolean isAlive(Path socket) {
+    try {
+      UnixSockets.connect(socket).close();
+      return true;
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+
+  private static long timeoutMicros() {
+    String timeout = System.getProperty("de.flapdoodle.os.daemon.timeoutMicros");
+    try {
+      return timeout != null ? Long.parseLong(timeout.trim()) : DEFAULT_TIMEOUT_MICROS;
+    } catch (NumberFormatException nfx) {
+      return DEFAULT_TIMEOUT_MICROS;
+    }
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.MappedTextFile;
+import de.flapdoodle.os.common.attributes.TextFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * watches the directories of all files the catalog reads (e.g. /etc/os-release) and runs the detection again
+ * if one of these files is created, changed or deleted. if a directory does not exist, its nearest existing parent
+ * is watched until it is created, the same applies if a watched directory is deleted. subscribers are called with the new platform
+ * from the watcher thread, but only if it differs from the last one.
+ */
+public final class PlatformWatcher implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(PlatformWatcher.class);
+
+  // editors and package managers write a file in more than one step
+  static final long SETTLE_MILLIS = 50;
+
+  private final Supplier<Platform> detection;
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> directories = new HashMap<>();
+  // names of watched files or of missing directories on the way to a watched file
+  private final Map<Path, Set<Path>> fileNames = new HashMap<>();
+  // files in missing directories, by the watched parent
+  private final Map<Path, Set<Path>> pending = new HashMap<>();
+  // all files registered in a directory, to register them again if the directory is deleted
+  private final Map<Path, Set<Path>> files = new HashMap<>();
+  private final CopyOnWriteArrayList<Consumer<Platform>> subscribers = new CopyOnWriteArrayList<>();
+  private final Thread thread;
+
+  private volatile Platform platform;
+
+  private PlatformWatcher(Collection<Path> files, Supplier<Platform> detection) throws IOException {
+    this.detection = detection;
+    this.watchService = FileSystems.getDefault().newWatchService();
+
+    // watches first: a change while detecting is queued and triggers another detection
+    try {
+      for (Path file : watchable(files)) {
+        register(file);
+      }
+      this.platform = detection.get();
+    } catch (IOException | RuntimeException ex) {
+      watchService.close();
+      throw ex;
+    }
+
+    this.thread = new Thread(this::watch, "platform-watcher");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * keeps the {@link PlatformCache} entry of this catalog up to date, detects in process even if
+   * -Dde.flapdoodle.os.daemon is set, because this watcher may be the one of the daemon
+   */
+  public static PlatformWatcher start(Collection<? extends OS> osList) throws IOException {
+    return start(watchedFiles(osList), () -> {
+      PlatformCache.invalidate(osList);
+      return PlatformCache.detect(osList, () -> Platform.detectInProcess(osList));
+    });
+  }
+
+  static PlatformWatcher start(Collection<Path> files, Supplier<Platform> detection) throws IOException {
+    return new PlatformWatcher(files, detection);
+  }
+
+  static Set<Path> watchedFiles(Collection<? extends OS> osList) {
+    Set<Path> files = new LinkedHashSet<>();
+    for (Attribute<?> attribute : CompiledCatalog.cached(osList).attributes()) {
+      if (attribute instanceof TextFile) {
+        files.add(Paths.get(((TextFile) attribute).name()));
+      }
+      if (attribute instanceof MappedTextFile) {
+        files.add(Paths.get(((MappedTextFile<?>) attribute).name()));
+      }
+    }
+    return files;
+  }
+
+  public Platform platform() {
+    return platform;
+  }
+
+  public void subscribe(Consumer<Platform> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  public void unsubscribe(Consumer<Platform> subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  @Override
+  public void close() throws IOException {
+    thread.interrupt();
+    watchService.close();
+  }
+
+  private void watch() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        boolean changed = relevant(watchService.take());
+        WatchKey next;
+        while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          changed = relevant(next) || changed;
+        }
+        if (changed) {
+          refresh();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException ex) {
+      // closed
+    }
+  }
+
+  private void register(Path file) throws IOException {
+    Path directory = file.getParent();
+    Path name = file.getFileName();
+    while (directory != null && !Files.isDirectory(directory)) {
+      name = directory.getFileName();
+      directory = directory.getParent();
+    }
+    if (directory == null) {
+      logger.warn("no parent directory of {} exists, changes are not detected", file);
+      return;
+    }
+    if (!directory.equals(file.getParent())) {
+      logger.debug("{} does not exist, watching {} until it is created", file.getParent(), directory);
+      pending.computeIfAbsent(directory, it -> new HashSet<>()).add(file);
+    }
+    if (!fileNames.containsKey(directory)) {
+      WatchKey key = directory.register(watchService,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY,
+        StandardWatchEventKinds.ENTRY_DELETE);
+      directories.put(key, directory);
+    }
+    fileNames.computeIfAbsent(directory, it -> new HashSet<>()).add(name);
+    files.computeIfAbsent(directory, it -> new HashSet<>()).add(file);
+  }
+
+  private boolean relevant(WatchKey key) {
+    Path directory = directories.get(key);
+    boolean relevant = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      Object context = event.context();
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW
+        || (directory != null && context instanceof Path && fileNames.get(directory).contains(context))) {
+        relevant = true;
+      }
+    }
+    if (!key.reset()) {
+      directories.remove(key);
+      if (directory != null) {
+        registerAgain(directory);
+      }
+      return true;
+    }
+    if (relevant && pending.containsKey(directory)) {
+      registerPending(directory);
+    }
+    return relevant;
+  }
+
+  /**
+   * a missing directory may have been created, files inside it may exist already, so this is followed by a detection
+   */
+  private void registerPending(Path directory) {
+    registerAll(pending.remove(directory));
+  }
+
+  /**
+   * the key of a deleted (or moved) directory is invalid, even if the directory is created again,
+   * so its files are registered again, which watches the nearest existing parent until the directory is back.
+   * the files may have changed in between, so this is followed by a detection
+   */
+  private void registerAgain(Path directory) {
+    logger.debug("{} is no longer watchable, register its files again", directory);
+    fileNames.remove(directory);
+    pending.remove(directory);
+    registerAll(files.remove(directory));
+  }
+
+  private void registerAll(Set<Path> paths) {
+    for (Path file : paths) {
+      try {
+        register(file);
+      } catch (IOException | RuntimeException ex) {
+        logger.warn("could not watch {}", file, ex);
+      }
+    }
+  }
+
+  /**
+   * must not fail, it runs on the watcher thread, which would stop watching silently
+   */
+  private void refresh() {
+    Platform detected;
+    try {
+      detected = detection.get();
+    } catch (Throwable tx) {
+      logger.warn("platform detection failed, keep {}", platform, tx);
+      return;
+    }
+    if (!Objects.equals(detected, platform)) {
+      platform = detected;
+      for (Consumer<Platform> subscriber : subscribers) {
+        try {
+          subscriber.accept(detected);
+        } catch (Throwable tx) {
+          logger.warn("subscriber {} failed", subscriber, tx);
+        }
+      }
+    }
+  }
+
+  /**
+   * a symlink (like /etc/os-release -&gt; ../usr/lib/os-release) changes if its target changes,
+   * so the target is watched as well
+   */
+  private static Set<Path> watchable(Collection<Path> files) {
+    Set<Path> result = new LinkedHashSet<>();
+    for (Path file : files) {
+      Path absolute = file.toAbsolutePath();
+      result.add(absolute);
+      if (Files.isSymbolicLink(absolute)) {
+        try {
+          result.add(absolute.toRealPath());
+        } catch (IOException iox) {
+          logger.debug("could not resolve {}", absolute, iox);
+        }
+      }
+    }
+    return result;
+  }
+}
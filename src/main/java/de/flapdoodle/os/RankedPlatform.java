@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import org.immutables.value.Value;
+
+/**
+ * a {@link Platform} candidate with its score: the distribution score plus the version score, each between 0 and 1
+ */
+@Value.Immutable
+public abstract class RankedPlatform {
+  public static final double MAX_SCORE = 2.0;
+
+  @Value.Parameter
+  public abstract Platform platform();
+
+  @Value.Parameter
+  public abstract double score();
+
+  public static RankedPlatform of(Platform platform, double score) {
+    return ImmutableRankedPlatform.of(platform, score);
+  }
+}
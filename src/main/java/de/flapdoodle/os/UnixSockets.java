@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * unix domain sockets need java 16, this library is built for java 8, so the api is looked up by reflection.
+ * every other method must only be called if {@link #isSupported()}
+ */
+abstract class UnixSockets {
+
+  private static final Api API = Api.lookup();
+
+  private UnixSockets() {
+    // no instance
+  }
+
+  static boolean isSupported() {
+    return API != null;
+  }
+
+  static SocketAddress address(Path socket) throws IOException {
+    return (SocketAddress) invoke(API.addressOf, socket);
+  }
+
+  static SocketChannel open() throws IOException {
+    return (SocketChannel) invoke(API.openClient, API.family);
+  }
+
+  static SocketChannel connect(Path socket) throws IOException {
+    SocketChannel channel = open();
+    try {
+      channel.connect(address(socket));
+      return channel;
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  static ServerSocketChannel bind(Path socket) throws IOException {
+    ServerSocketChannel channel = (ServerSocketChannel) invoke(API.openServer, API.family);
+    try {
+      channel.bind(address(socket));
+      return channel;
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  private static Object invoke(Method method, Object argument) throws IOException {
+    try {
+      return method.invoke(null, argument);
+    } catch (InvocationTargetException ix) {
+      Throwable cause = ix.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IOException(cause);
+    } catch (IllegalAccessException iax) {
+      throw new IllegalStateException(iax);
+    }
+  }
+
+  private static final class Api {
+    private final ProtocolFamily family;
+    private final Method addressOf;
+    private final Method openClient;
+    private final Method openServer;
+
+    private Api(ProtocolFamily family, Method addressOf, Method openClient, Method openServer) {
+      this.family = family;
+      this.addressOf = addressOf;
+      this.openClient = openClient;
+      this.openServer = openServer;
+    }
+
+    /**
+     * @return null before java 16
+     */
+    private static Api lookup() {
+      try {
+        return new Api(
+          StandardProtocolFamily.valueOf("UNIX"),
+          Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class),
+          SocketChannel.class.getMethod("open", ProtocolFamily.class),
+          ServerSocketChannel.class.getMethod("open", ProtocolFamily.class));
+      } catch (ClassNotFoundException | NoSuchMethodException | IllegalArgumentException | LinkageError | SecurityException ex) {
+        return null;
+      }
+    }
+  }
+}
@@ -26,6 +26,11 @@ public abstract class AllOf implements Peculiarity {
 	@Value.Parameter
 	public abstract List<Peculiarity> pecularities();
 
+	@Value.Lazy
+	public List<Peculiarity> evaluationOrder() {
+		return PeculiarityCost.sortedByCost(pecularities());
+	}
+
 	@Value.Check
 	protected void check() {
 		if (pecularities().isEmpty()) throw new IllegalArgumentException("is empty");
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.matcher.LsbReleaseFileEntryMatcher;
+import de.flapdoodle.os.common.matcher.LsbReleaseFileMapEntry;
+import de.flapdoodle.os.common.matcher.Match;
+import de.flapdoodle.os.common.matcher.OsReleaseFileEntryMatcher;
+import de.flapdoodle.os.common.matcher.OsReleaseFileMapEntry;
+import de.flapdoodle.os.common.types.LsbReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFile;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * inverted index over candidates (e.g. all versions of a distribution) which need a release file entry with a literal
+ * value (like VERSION_ID="22.04"): the entry value is looked up once and only matching candidates are evaluated.
+ * candidates without such a literal check are always evaluated.
+ * the index assumes the matching semantics of {@link OsReleaseFileEntryMatcher} and {@link LsbReleaseFileEntryMatcher},
+ * it is not used if the {@link de.flapdoodle.os.common.matcher.MatcherLookup} of the evaluation returns any other matcher.
+ */
+public final class CandidateIndex<T> {
+	private final List<T> items;
+	private final Map<EntryKey, Map<String, BitSet>> index;
+	private final BitSet unindexed;
+
+	private CandidateIndex(List<T> items, Map<EntryKey, Map<String, BitSet>> index, BitSet unindexed) {
+		this.items = items;
+		this.index = index;
+		this.unindexed = unindexed;
+	}
+
+	/**
+	 * @return items which may match, in declaration order
+	 */
+	public List<T> candidates(Evaluation evaluation) {
+		if (index.isEmpty() || !index.keySet().stream().allMatch(key -> key.hasDefaultMatcher(evaluation))) {
+			return items;
+		}
+		BitSet candidates = (BitSet) unindexed.clone();
+		index.forEach((key, byValue) -> key.value(evaluation)
+			.map(byValue::get)
+			.ifPresent(candidates::or));
+
+		List<T> result = new ArrayList<>(candidates.cardinality());
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			result.add(items.get(i));
+		}
+		return result;
+	}
+
+	public static <T> CandidateIndex<T> of(List<T> items, Function<T, Condition> conditionOf, CompiledPeculiarities peculiarities) {
+		Map<EntryKey, Map<String, BitSet>> index = new LinkedHashMap<>();
+		BitSet unindexed = new BitSet(items.size());
+
+		for (int i = 0; i < items.size(); i++) {
+			Optional<LiteralEntry> literal = necessaryLiteral(conditionOf.apply(items.get(i)), peculiarities);
+			if (literal.isPresent()) {
+				Map<String, BitSet> byValue = index.computeIfAbsent(literal.get().key, key -> new HashMap<>());
+				for (String value : literal.get().values) {
+					byValue.computeIfAbsent(value, v -> new BitSet(items.size())).set(i);
+				}
+			} else {
+				unindexed.set(i);
+			}
+		}
+		return new CandidateIndex<>(items, index, unindexed);
+	}
+
+	private static Optional<LiteralEntry> necessaryLiteral(Condition condition, CompiledPeculiarities peculiarities) {
+		if (condition instanceof Condition.Check) {
+			return literalEntry(peculiarities.check(((Condition.Check) condition).index()));
+		}
+		if (condition instanceof Condition.AllOf) {
+			for (Condition it : ((Condition.AllOf) condition).conditions()) {
+				Optional<LiteralEntry> literal = necessaryLiteral(it, peculiarities);
+				if (literal.isPresent()) {
+					return literal;
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	private static Optional<LiteralEntry> literalEntry(DistinctPeculiarity<?> check) {
+		Match<?> match = check.match();
+		if (match instanceof OsReleaseFileMapEntry) {
+			OsReleaseFileMapEntry entry = (OsReleaseFileMapEntry) match;
+			return entry.specializedValuePattern().exactLiterals()
+				.map(values -> new LiteralEntry(new EntryKey(check.attribute(), entry.key(), entry, OsReleaseFileEntryMatcher.class), values));
+		}
+		if (match instanceof LsbReleaseFileMapEntry) {
+			LsbReleaseFileMapEntry entry = (LsbReleaseFileMapEntry) match;
+			return entry.specializedValuePattern().exactLiterals()
+				.map(values -> new LiteralEntry(new EntryKey(check.attribute(), entry.key(), entry, LsbReleaseFileEntryMatcher.class), values));
+		}
+		return Optional.empty();
+	}
+
+	private static final class LiteralEntry {
+		private final EntryKey key;
+		private final Set<String> values;
+
+		private LiteralEntry(EntryKey key, Set<String> values) {
+			this.key = key;
+			this.values = values;
+		}
+	}
+
+	private static final class EntryKey {
+		private final Attribute<?> attribute;
+		private final String key;
+		// not part of equals: any match with this key and attribute type is evaluated by the same matcher
+		private final Match<?> match;
+		private final Class<?> defaultMatcher;
+
+		private EntryKey(Attribute<?> attribute, String key, Match<?> match, Class<?> defaultMatcher) {
+			this.attribute = attribute;
+			this.key = key;
+			this.match = match;
+			this.defaultMatcher = defaultMatcher;
+		}
+
+		private boolean hasDefaultMatcher(Evaluation evaluation) {
+			try {
+				return evaluation.matcher(match)
+					.map(it -> it.getClass() == defaultMatcher)
+					.orElse(false);
+			} catch (RuntimeException rx) {
+				return false;
+			}
+		}
+
+		private Optional<String> value(Evaluation evaluation) {
+			return evaluation.extract(attribute)
+				.map(file -> {
+					if (file instanceof OsReleaseFile) {
+						return ((OsReleaseFile) file).attributes().get(key);
+					}
+					if (file instanceof LsbReleaseFile) {
+						return ((LsbReleaseFile) file).attributes().get(key);
+					}
+					return null;
+				});
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			EntryKey other = (EntryKey) o;
+			return attribute.equals(other.attribute) && key.equals(other.key);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(attribute, key);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.AttributeColumns;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.listener.DetectionListener;
+import de.flapdoodle.os.common.listener.DetectionListeners;
+import de.flapdoodle.os.common.matcher.Match;
+import de.flapdoodle.os.common.matcher.Matcher;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * collects every distinct peculiarity only once, so that equal checks used by
+ * different catalog entries are evaluated only once per {@link Evaluation}
+ */
+public final class CompiledPeculiarities {
+
+	private final List<DistinctPeculiarity<?>> checks = new ArrayList<>();
+	private final Map<DistinctPeculiarity<?>, Integer> indexOf = new HashMap<>();
+
+	public Condition compile(List<? extends Peculiarity> peculiarities) {
+		// same semantic as PeculiarityInspector.matches(Iterable)
+		return peculiarities.isEmpty()
+			? Condition.always()
+			: compile(peculiarities.get(0));
+	}
+
+	public Condition compile(Peculiarity peculiarity) {
+		if (peculiarity instanceof DistinctPeculiarity) {
+			return Condition.check(indexOf((DistinctPeculiarity<?>) peculiarity));
+		}
+		if (peculiarity instanceof OneOf) {
+			return Condition.anyOf(compileAll(((OneOf) peculiarity).evaluationOrder()));
+		}
+		if (peculiarity instanceof AllOf) {
+			return Condition.allOf(compileAll(((AllOf) peculiarity).evaluationOrder()));
+		}
+		throw new IllegalArgumentException("unknown peculiarity: " + peculiarity);
+	}
+
+	private List<Condition> compileAll(List<Peculiarity> peculiarities) {
+		return peculiarities.stream()
+			.map(this::compile)
+			.collect(Collectors.toList());
+	}
+
+	private int indexOf(DistinctPeculiarity<?> peculiarity) {
+		return indexOf.computeIfAbsent(peculiarity, it -> {
+			checks.add(it);
+			return checks.size() - 1;
+		});
+	}
+
+	public List<DistinctPeculiarity<?>> checks() {
+		return Collections.unmodifiableList(checks);
+	}
+
+	public DistinctPeculiarity<?> check(int index) {
+		return checks.get(index);
+	}
+
+	public Set<Attribute<?>> attributes() {
+		return checks.stream()
+			.map(DistinctPeculiarity::attribute)
+			.collect(Collectors.toCollection(LinkedHashSet::new));
+	}
+
+	public Evaluation evaluation(AttributeExtractorLookup attributeExtractorLookup, MatcherLookup matcherLookup) {
+		return new Evaluation(this, attributeExtractorLookup, matcherLookup);
+	}
+
+	/**
+	 * evaluates every check against a whole column, one matcher lookup per check, checks in parallel
+	 * @return one bitset of matching rows per check
+	 */
+	public BitSet[] evaluate(AttributeColumns columns, MatcherLookup matcherLookup) {
+		BitSet[] results = new BitSet[checks.size()];
+		// scoped listeners are bound to this thread, not to the worker threads
+		DetectionListener listener = DetectionListeners.current();
+		IntStream.range(0, checks.size())
+			.parallel()
+			.forEach(index -> results[index] = evaluate(checks.get(index), columns, matcherLookup, listener));
+		return results;
+	}
+
+	private static <T> BitSet evaluate(DistinctPeculiarity<T> check, AttributeColumns columns, MatcherLookup matcherLookup, DetectionListener listener) {
+		List<Optional<T>> column = columns.column(check.attribute());
+		Match<T> match = check.match();
+		Optional<Matcher<T, Match<T>>> matcher = matcherLookup.matcher(match);
+
+		BitSet result = new BitSet(columns.rows());
+		if (matcher.isPresent()) {
+			Matcher<T, Match<T>> m = matcher.get();
+			for (int row = 0; row < column.size(); row++) {
+				if (DetectionListeners.match(listener, check.attribute(), m, column.get(row), match)) {
+					result.set(row);
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * compiled form of a {@link Peculiarity}, referencing the distinct checks of a {@link CompiledPeculiarities} by index
+ */
+public abstract class Condition {
+
+	private Condition() {
+		// only inner classes
+	}
+
+	public abstract boolean test(Evaluation evaluation);
+
+	/**
+	 * @param checks one bitset of matching rows per check
+	 * @return matching rows
+	 */
+	public abstract BitSet rows(BitSet[] checks, int rows);
+
+	/**
+	 * sets the index of every check this condition depends on
+	 */
+	public abstract void collectChecks(BitSet indexes);
+
+	static Condition always() {
+		return Always.INSTANCE;
+	}
+
+	static Condition check(int index) {
+		return new Check(index);
+	}
+
+	static Condition anyOf(List<Condition> conditions) {
+		return new AnyOf(conditions.toArray(new Condition[0]));
+	}
+
+	static Condition allOf(List<Condition> conditions) {
+		return new AllOf(conditions.toArray(new Condition[0]));
+	}
+
+	static final class Always extends Condition {
+		private static final Always INSTANCE = new Always();
+
+		@Override
+		public boolean test(Evaluation evaluation) {
+			return true;
+		}
+
+		@Override
+		public BitSet rows(BitSet[] checks, int rows) {
+			BitSet result = new BitSet(rows);
+			result.set(0, rows);
+			return result;
+		}
+
+		@Override
+		public void collectChecks(BitSet indexes) {
+		}
+
+		@Override
+		public String toString() {
+			return "Always";
+		}
+	}
+
+	static final class Check extends Condition {
+		private final int index;
+
+		private Check(int index) {
+			this.index = index;
+		}
+
+		public int index() {
+			return index;
+		}
+
+		@Override
+		public boolean test(Evaluation evaluation) {
+			return evaluation.check(index);
+		}
+
+		@Override
+		public BitSet rows(BitSet[] checks, int rows) {
+			return (BitSet) checks[index].clone();
+		}
+
+		@Override
+		public void collectChecks(BitSet indexes) {
+			indexes.set(index);
+		}
+
+		@Override
+		public String toString() {
+			return "Check(" + index + ")";
+		}
+	}
+
+	static final class AnyOf extends Condition {
+		private final Condition[] conditions;
+
+		private AnyOf(Condition[] conditions) {
+			this.conditions = conditions;
+		}
+
+		@Override
+		public boolean test(Evaluation evaluation) {
+			for (Condition condition : conditions) {
+				if (condition.test(evaluation)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public BitSet rows(BitSet[] checks, int rows) {
+			BitSet result = new BitSet(rows);
+			for (Condition condition : conditions) {
+				result.or(condition.rows(checks, rows));
+			}
+			return result;
+		}
+
+		@Override
+		public void collectChecks(BitSet indexes) {
+			for (Condition condition : conditions) {
+				condition.collectChecks(indexes);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "AnyOf" + Arrays.toString(conditions);
+		}
+	}
+
+	static final class AllOf extends Condition {
+		private final Condition[] conditions;
+
+		private AllOf(Condition[] conditions) {
+			this.conditions = conditions;
+		}
+
+		List<Condition> conditions() {
+			return Arrays.asList(conditions);
+		}
+
+		@Override
+		public boolean test(Evaluation evaluation) {
+			for (Condition condition : conditions) {
+				if (!condition.test(evaluation)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public BitSet rows(BitSet[] checks, int rows) {
+			BitSet result = new BitSet(rows);
+			result.set(0, rows);
+			for (Condition condition : conditions) {
+				result.and(condition.rows(checks, rows));
+			}
+			return result;
+		}
+
+		@Override
+		public void collectChecks(BitSet indexes) {
+			for (Condition condition : conditions) {
+				condition.collectChecks(indexes);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "AllOf" + Arrays.toString(conditions);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.attributes.CachingWrapper;
+import de.flapdoodle.os.common.matcher.Match;
+import de.flapdoodle.os.common.matcher.Matcher;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+
+import java.util.Optional;
+
+/**
+ * evaluates each check of a {@link CompiledPeculiarities} at most once
+ */
+public final class Evaluation {
+	private static final byte UNKNOWN = 0;
+	private static final byte MATCH = 1;
+	private static final byte NO_MATCH = 2;
+
+	private final CompiledPeculiarities peculiarities;
+	private final AttributeExtractorLookup attributeExtractorLookup;
+	private final MatcherLookup matcherLookup;
+	private final byte[] results;
+
+	Evaluation(CompiledPeculiarities peculiarities, AttributeExtractorLookup attributeExtractorLookup, MatcherLookup matcherLookup) {
+		this.peculiarities = peculiarities;
+		this.attributeExtractorLookup = CachingWrapper.wrap(attributeExtractorLookup);
+		this.matcherLookup = matcherLookup;
+		this.results = new byte[peculiarities.checks().size()];
+	}
+
+	public boolean check(int index) {
+		byte result = results[index];
+		if (result == UNKNOWN) {
+			result = PeculiarityInspector.matches(attributeExtractorLookup, matcherLookup, peculiarities.check(index))
+				? MATCH
+				: NO_MATCH;
+			results[index] = result;
+		}
+		return result == MATCH;
+	}
+
+	public <T, M extends Match<T>> Optional<Matcher<T, M>> matcher(M match) {
+		return matcherLookup.matcher(match);
+	}
+
+	public <T> Optional<T> extract(Attribute<T> attribute) {
+		return attributeExtractorLookup.<T, Attribute<T>>extractor(attribute)
+			.flatMap(it -> it.extract(attribute));
+	}
+}
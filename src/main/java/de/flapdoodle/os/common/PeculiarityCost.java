@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common;
+
+import de.flapdoodle.os.common.attributes.Cost;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public abstract class PeculiarityCost {
+
+	private PeculiarityCost() {
+		// no instance
+	}
+
+	public static Cost of(Peculiarity peculiarity) {
+		if (peculiarity instanceof DistinctPeculiarity) {
+			return ((DistinctPeculiarity<?>) peculiarity).attribute().cost();
+		}
+		if (peculiarity instanceof OneOf) {
+			return max(((OneOf) peculiarity).pecularities());
+		}
+		if (peculiarity instanceof AllOf) {
+			return max(((AllOf) peculiarity).pecularities());
+		}
+		return Cost.UNKNOWN;
+	}
+
+	/**
+	 * stable sort, cheap checks first, so that they can short circuit expensive ones
+	 */
+	public static List<Peculiarity> sortedByCost(List<Peculiarity> peculiarities) {
+		List<Peculiarity> sorted = new ArrayList<>(peculiarities);
+		sorted.sort(Comparator.comparing(PeculiarityCost::of));
+		return sorted;
+	}
+
+	private static Cost max(List<Peculiarity> peculiarities) {
+		Cost max = Cost.IN_MEMORY;
+		for (Peculiarity it : peculiarities) {
+			Cost cost = of(it);
+			if (cost.compareTo(max) > 0) {
+				max = cost;
+			}
+		}
+		return max;
+	}
+}
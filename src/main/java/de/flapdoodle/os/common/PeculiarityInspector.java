@@ -19,6 +19,8 @@ package de.flapdoodle.os.common;
 import de.flapdoodle.os.common.attributes.Attribute;
 import de.flapdoodle.os.common.attributes.AttributeExtractor;
 import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.jfr.Jfr;
+import de.flapdoodle.os.common.listener.DetectionListeners;
 import de.flapdoodle.os.common.matcher.Match;
 import de.flapdoodle.os.common.matcher.Matcher;
 import de.flapdoodle.os.common.matcher.MatcherLookup;
@@ -31,7 +33,6 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
-// TODO cache extracted attributes
 public abstract class PeculiarityInspector {
 
   private static Logger logger = LoggerFactory.getLogger(PeculiarityInspector.class);
@@ -94,7 +95,6 @@ public abstract class PeculiarityInspector {
   }
 
 
-  // TODO cache extracted attributes
   public static boolean matches(
           AttributeExtractorLookup attributeExtractorLookup,
           MatcherLookup matcherLookup,
@@ -127,7 +127,7 @@ public abstract class PeculiarityInspector {
     AttributeExtractorLookup attributeExtractorLookup,
     MatcherLookup matcherLookup,
     OneOf oneOf) {
-    for (Peculiarity it : oneOf.pecularities()) {
+    for (Peculiarity it : oneOf.evaluationOrder()) {
       if (matches(attributeExtractorLookup, matcherLookup, it)) {
         return true;
       }
@@ -139,7 +139,7 @@ public abstract class PeculiarityInspector {
     AttributeExtractorLookup attributeExtractorLookup,
     MatcherLookup matcherLookup,
     AllOf allOf) {
-    for (Peculiarity it : allOf.pecularities()) {
+    for (Peculiarity it : allOf.evaluationOrder()) {
       if (!matches(attributeExtractorLookup, matcherLookup, it)) {
         return false;
       }
@@ -147,12 +147,12 @@ public abstract class PeculiarityInspector {
     return true;
   }
 
-  // TODO cache extracted attributes
   public static <T> boolean matches(
           AttributeExtractorLookup attributeExtractorLookup,
           MatcherLookup matcherLookup,
           DistinctPeculiarity<T> peculiarity
   ) {
+    Object event = Jfr.beginPeculiarityEvaluation();
 
     Attribute<T> attribute = peculiarity.attribute();
     Optional<AttributeExtractor<T, Attribute<T>>> extractor = attributeExtractorLookup.extractor(attribute);
@@ -162,8 +162,11 @@ public abstract class PeculiarityInspector {
     Match<T> match = peculiarity.match();
     Optional<Matcher<T, Match<T>>> matcher = matcherLookup.matcher(match);
 
-    return matcher
-            .map(m -> m.match(value, match))
+    boolean matches = matcher
+            .map(m -> DetectionListeners.match(attribute, m, value, match))
             .orElse(false);
+
+    Jfr.commitPeculiarityEvaluation(event, attribute, match, matches);
+    return matches;
   }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common;
+
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+
+import java.util.List;
+
+/**
+ * like {@link PeculiarityInspector#matches(AttributeExtractorLookup, MatcherLookup, Iterable)}, but with partial credit:
+ * a distinct peculiarity scores 1 or 0, one of scores its best child and all of the fraction of matching children.
+ */
+public abstract class PeculiarityScore {
+
+	public static final double MATCH = 1.0;
+	public static final double NO_MATCH = 0.0;
+
+	private PeculiarityScore() {
+		// no instance
+	}
+
+	public static double of(
+		AttributeExtractorLookup attributeExtractorLookup,
+		MatcherLookup matcherLookup,
+		Iterable<? extends Peculiarity> peculiarities
+	) {
+		for (Peculiarity it : peculiarities) {
+			return of(attributeExtractorLookup, matcherLookup, it);
+		}
+		return MATCH;
+	}
+
+	public static double of(
+		AttributeExtractorLookup attributeExtractorLookup,
+		MatcherLookup matcherLookup,
+		Peculiarity peculiarity
+	) {
+		if (peculiarity instanceof DistinctPeculiarity) {
+			return PeculiarityInspector.matches(attributeExtractorLookup, matcherLookup, (DistinctPeculiarity<?>) peculiarity)
+				? MATCH
+				: NO_MATCH;
+		}
+		if (peculiarity instanceof OneOf) {
+			double max = NO_MATCH;
+			for (Peculiarity it : ((OneOf) peculiarity).evaluationOrder()) {
+				max = Math.max(max, of(attributeExtractorLookup, matcherLookup, it));
+				if (max == MATCH) {
+					break;
+				}
+			}
+			return max;
+		}
+		if (peculiarity instanceof AllOf) {
+			List<Peculiarity> children = ((AllOf) peculiarity).evaluationOrder();
+			if (children.isEmpty()) {
+				return MATCH;
+			}
+			double sum = 0;
+			for (Peculiarity it : children) {
+				sum += of(attributeExtractorLookup, matcherLookup, it);
+			}
+			return sum / children.size();
+		}
+		throw new IllegalArgumentException("unknown peculiarity: " + peculiarity);
+	}
+}
@@ -17,5 +17,7 @@
 package de.flapdoodle.os.common.attributes;
 
 public interface Attribute<T> {
-	
+	default Cost cost() {
+		return Cost.UNKNOWN;
+	}
 }
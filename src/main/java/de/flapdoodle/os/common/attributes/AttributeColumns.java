@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * attribute values of many hosts, stored column by column (one list of values per attribute)
+ */
+public final class AttributeColumns {
+	private final int rows;
+	private final Map<Attribute<?>, List<? extends Optional<?>>> columns;
+
+	private AttributeColumns(int rows, Map<Attribute<?>, List<? extends Optional<?>>> columns) {
+		this.rows = rows;
+		this.columns = Collections.unmodifiableMap(new HashMap<>(columns));
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public <T> List<Optional<T>> column(Attribute<T> attribute) {
+		List<Optional<T>> column = (List<Optional<T>>) columns.get(attribute);
+		return column != null
+			? column
+			: Collections.nCopies(rows, Optional.empty());
+	}
+
+	public static Builder builder(int rows) {
+		return new Builder(rows);
+	}
+
+	/**
+	 * transposes per host lookups into columns for the given attributes
+	 */
+	public static AttributeColumns of(Collection<? extends Attribute<?>> attributes, List<? extends AttributeExtractorLookup> hosts) {
+		Builder builder = builder(hosts.size());
+		for (Attribute<?> attribute : attributes) {
+			builder.extracted(attribute, hosts);
+		}
+		return builder.build();
+	}
+
+	public static final class Builder {
+		private final int rows;
+		private final Map<Attribute<?>, List<? extends Optional<?>>> columns = new HashMap<>();
+
+		private Builder(int rows) {
+			this.rows = rows;
+		}
+
+		public <T> Builder column(Attribute<T> attribute, List<Optional<T>> values) {
+			if (values.size() != rows) {
+				throw new IllegalArgumentException("expected " + rows + " values for " + attribute + ", got " + values.size());
+			}
+			columns.put(attribute, Collections.unmodifiableList(new ArrayList<>(values)));
+			return this;
+		}
+
+		private <T> Builder extracted(Attribute<T> attribute, List<? extends AttributeExtractorLookup> hosts) {
+			List<Optional<T>> values = new ArrayList<>(hosts.size());
+			for (AttributeExtractorLookup host : hosts) {
+				values.add(host.<T, Attribute<T>>extractor(attribute).flatMap(it -> it.extract(attribute)));
+			}
+			return column(attribute, values);
+		}
+
+		public AttributeColumns build() {
+			return new AttributeColumns(rows, columns);
+		}
+	}
+}
@@ -55,9 +55,14 @@ public interface AttributeExtractorLookup {
 	}
 
 	static AttributeExtractorLookup systemDefault() {
-		return with(TextFile.any(), new TextFileResolver())
+		return systemDefault(new TextFileCache());
+	}
+
+	static AttributeExtractorLookup systemDefault(TextFileCache textFileCache) {
+		return with(TextFile.any(), new TextFileResolver(textFileCache))
 						.join(with(SystemProperty.any(), new SystemPropertyResolver()))
-						.join(with(MappedTextFile.any(), new MappedTextFileResolver()))
+						.join(with(MappedTextFile.any(), new MappedTextFileResolver(textFileCache)))
+						.join(with(CpuFeatures.any(), new CpuFeaturesResolver()))
 						.join(failing());
 	}
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * raw attribute values (system properties, text file contents and cpu features) recorded during a detection,
+ * which can be written to a file and replayed without touching the file system
+ */
+public final class AttributeSnapshot {
+	static final String VERSION_KEY = "snapshot.version";
+	static final String VERSION = "1";
+
+	private static final String SYSTEM_PROPERTY = "systemProperty:";
+	private static final String TEXT_FILE = "textFile:";
+	private static final String CPU_FEATURES = "cpuFeatures:";
+
+	private final Map<String, String> values;
+
+	private AttributeSnapshot(Map<String, String> values) {
+		this.values = Collections.unmodifiableMap(new TreeMap<>(values));
+	}
+
+	public Map<String, String> values() {
+		return values;
+	}
+
+	public AttributeExtractorLookup lookup() {
+		return AttributeExtractorLookup.with(SystemProperty.any(), (SystemProperty it) -> get(SYSTEM_PROPERTY + it.name()))
+			.join(AttributeExtractorLookup.with(TextFile.any(), (TextFile it) -> get(TEXT_FILE + it.name())))
+			.join(AttributeExtractorLookup.with(MappedTextFile.any(), (MappedTextFile<Object> it) -> get(TEXT_FILE + it.name()).map(it.converter())))
+			.join(AttributeExtractorLookup.with(CpuFeatures.any(), (CpuFeatures it) -> get(CPU_FEATURES + it.cpuInfo()).map(CpuFeaturesResolver::parse)))
+			.join(AttributeExtractorLookup.failing());
+	}
+
+	private Optional<String> get(String key) {
+		return Optional.ofNullable(values.get(key));
+	}
+
+	public void write(Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			write(out);
+		}
+	}
+
+	public void write(OutputStream out) throws IOException {
+		Properties properties = new Properties();
+		properties.putAll(values);
+		properties.setProperty(VERSION_KEY, VERSION);
+		try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+			properties.store(writer, "de.flapdoodle.os attribute snapshot");
+		}
+	}
+
+	public static AttributeSnapshot read(Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			return read(in);
+		}
+	}
+
+	public static AttributeSnapshot read(InputStream in) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		String version = properties.getProperty(VERSION_KEY);
+		if (!VERSION.equals(version)) {
+			throw new IOException("unsupported snapshot version: " + version);
+		}
+		Map<String, String> values = new TreeMap<>();
+		properties.stringPropertyNames().stream()
+			.filter(key -> !key.equals(VERSION_KEY))
+			.forEach(key -> values.put(key, properties.getProperty(key)));
+		return new AttributeSnapshot(values);
+	}
+
+	public static Recorder recording(AttributeExtractorLookup delegate) {
+		return new Recorder(delegate);
+	}
+
+	/**
+	 * records every attribute value extracted through this lookup,
+	 * mapped text files are recorded as raw text and converted afterwards
+	 */
+	public static final class Recorder implements AttributeExtractorLookup {
+		private final AttributeExtractorLookup delegate;
+		private final Map<String, String> values = new ConcurrentHashMap<>();
+
+		private Recorder(AttributeExtractorLookup delegate) {
+			this.delegate = delegate;
+		}
+
+		public AttributeSnapshot snapshot() {
+			return new AttributeSnapshot(values);
+		}
+
+		@Override
+		public <T, A extends Attribute<T>> Optional<AttributeExtractor<T, A>> extractor(A attribute) {
+			if (attribute instanceof SystemProperty) {
+				return recorded(attribute, SYSTEM_PROPERTY + ((SystemProperty) attribute).name());
+			}
+			if (attribute instanceof TextFile) {
+				return recorded(attribute, TEXT_FILE + ((TextFile) attribute).name());
+			}
+			if (attribute instanceof MappedTextFile) {
+				MappedTextFile<T> mappedTextFile = (MappedTextFile<T>) attribute;
+				TextFile raw = ImmutableTextFile.of(mappedTextFile.name())
+					.withCharset(mappedTextFile.charset());
+				Optional<AttributeExtractor<String, TextFile>> rawExtractor = optional(() -> delegate.extractor(raw));
+				Optional<AttributeExtractor<T, A>> ownExtractor = optional(() -> delegate.extractor(attribute));
+				if (ownExtractor.isPresent()) {
+					// the result comes from the delegates own extractor, so recording does not change the detection
+					return ownExtractor.map(extractor -> it -> {
+						rawExtractor.flatMap(rawTextFile -> rawTextFile.extract(raw))
+							.ifPresent(value -> values.put(TEXT_FILE + raw.name(), value));
+						return extractor.extract(it);
+					});
+				}
+				if (rawExtractor.isPresent()) {
+					return rawExtractor.map(extractor -> it -> {
+						Optional<String> content = extractor.extract(raw);
+						content.ifPresent(value -> values.put(TEXT_FILE + raw.name(), value));
+						return content.map(mappedTextFile.converter());
+					});
+				}
+				return delegate.extractor(attribute);
+			}
+			if (attribute instanceof CpuFeatures) {
+				String key = CPU_FEATURES + ((CpuFeatures) attribute).cpuInfo();
+				return delegate.extractor(attribute).map(extractor -> current -> {
+					Optional<T> value = extractor.extract(current);
+					value.ifPresent(v -> values.put(key, String.join(" ", (Set<String>) v)));
+					return value;
+				});
+			}
+			return delegate.extractor(attribute);
+		}
+
+		/**
+		 * @return empty if the delegate has no extractor, even if it ends with {@link AttributeExtractorLookup#failing()}
+		 */
+		private static <T> Optional<T> optional(Supplier<Optional<T>> lookup) {
+			try {
+				return lookup.get();
+			} catch (IllegalArgumentException ix) {
+				return Optional.empty();
+			}
+		}
+
+		private <T, A extends Attribute<T>> Optional<AttributeExtractor<T, A>> recorded(A attribute, String key) {
+			Optional<AttributeExtractor<T, A>> extractor = delegate.extractor(attribute);
+			return extractor.map(it -> current -> {
+				Optional<T> value = it.extract(current);
+				value.ifPresent(v -> values.put(key, (String) v));
+				return value;
+			});
+		}
+	}
+}
@@ -31,4 +31,15 @@ public abstract class Attributes {
   public static SystemProperty systemProperty(String name) {
     return ImmutableSystemProperty.of(name);
   }
+
+  public static CpuFeatures cpuFeatures() {
+    return ImmutableCpuFeatures.builder().build();
+  }
+
+  public static CpuFeatures cpuFeatures(String auxv, String cpuInfo) {
+    return ImmutableCpuFeatures.builder()
+      .auxv(auxv)
+      .cpuInfo(cpuInfo)
+      .build();
+  }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import de.flapdoodle.os.common.listener.DetectionListener;
+import de.flapdoodle.os.common.listener.DetectionListeners;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * resolves each attribute only once for the lifetime of the wrapper,
+ * so that one detection run shares extracted values between os, architecture,
+ * distribution and version matching
+ */
+public abstract class CachingWrapper {
+	private CachingWrapper() {
+		// no instance
+	}
+
+	public static AttributeExtractorLookup wrap(AttributeExtractorLookup delegate) {
+		return new AttributeExtractorLookupWrapper(delegate);
+	}
+
+	static class AttributeExtractorLookupWrapper implements AttributeExtractorLookup {
+		private final AttributeExtractorLookup delegate;
+		private final Map<Attribute<?>, Optional<?>> extracted = new ConcurrentHashMap<>();
+
+		private AttributeExtractorLookupWrapper(AttributeExtractorLookup delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public <T, A extends Attribute<T>> Optional<AttributeExtractor<T, A>> extractor(A attribute) {
+			Optional<AttributeExtractor<T, A>> extractor = delegate.extractor(attribute);
+			return extractor.map(ExtractorWrapper::new);
+		}
+
+		class ExtractorWrapper<T, A extends Attribute<T>> implements AttributeExtractor<T, A> {
+			private final AttributeExtractor<T, A> delegate;
+
+			ExtractorWrapper(AttributeExtractor<T, A> delegate) {
+				this.delegate = delegate;
+			}
+
+			@Override
+			public Optional<T> extract(A attribute) {
+				Optional<?> cached = extracted.get(attribute);
+				if (cached != null) {
+					DetectionListeners.current().cacheHit(DetectionListener.Cache.ATTRIBUTE);
+					return (Optional<T>) cached;
+				}
+				DetectionListeners.current().cacheMiss(DetectionListener.Cache.ATTRIBUTE);
+				return (Optional<T>) extracted.computeIfAbsent(attribute, key -> delegate.extract(attribute));
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import org.immutables.value.Value;
+import org.immutables.value.Value.Immutable;
+
+import java.util.Set;
+
+/**
+ * cpu feature names as listed by the kernel in {@code /proc/cpuinfo}
+ * ({@code flags} on x86 like {@code avx2}, {@code avx512f}, {@code Features} on aarch64 like {@code asimd}, {@code sve}, {@code aes})
+ */
+@Immutable
+public interface CpuFeatures extends Attribute<Set<String>> {
+	@Value.Default
+	default String auxv() {
+		return "/proc/self/auxv";
+	}
+
+	@Value.Default
+	default String cpuInfo() {
+		return "/proc/cpuinfo";
+	}
+
+	@Override
+	default Cost cost() {
+		return Cost.FILE_SYSTEM;
+	}
+
+	static TypeCheckPredicate<CpuFeatures> any() {
+		return TypeCheckPredicate.isInstanceOf(CpuFeatures.class);
+	}
+}
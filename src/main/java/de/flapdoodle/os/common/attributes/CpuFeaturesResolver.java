@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import de.flapdoodle.os.BitSize;
+import de.flapdoodle.os.CPUType;
+import de.flapdoodle.os.common.io.IO;
+import de.flapdoodle.os.common.jfr.Jfr;
+import de.flapdoodle.os.common.matcher.ArchitectureTable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+
+/**
+ * on aarch64 the features are decoded from the {@code AT_HWCAP}/{@code AT_HWCAP2} entries of {@code /proc/self/auxv},
+ * everywhere else (and if auxv is not readable) the {@code flags} or {@code Features} line of {@code /proc/cpuinfo} is used.
+ */
+public class CpuFeaturesResolver implements AttributeExtractor<Set<String>, CpuFeatures> {
+
+	static final long AT_NULL = 0;
+	static final long AT_HWCAP = 16;
+	static final long AT_HWCAP2 = 26;
+
+	// 64 entries of (type, value), a linux auxv has less than 40
+	static final int AUXV_BUFFER_SIZE = 64 * 2 * Long.BYTES;
+
+	// bit positions from arch/arm64/include/uapi/asm/hwcap.h, named like in /proc/cpuinfo
+	private static final String[] AARCH64_HWCAP = {
+		"fp", "asimd", "evtstrm", "aes", "pmull", "sha1", "sha2", "crc32",
+		"atomics", "fphp", "asimdhp", "cpuid", "asimdrdm", "jscvt", "fcma", "lrcpc",
+		"dcpop", "sha3", "sm3", "sm4", "asimddp", "sha512", "sve", "asimdfhm",
+		"dit", "uscat", "ilrcpc", "flagm", "ssbs", "sb", "paca", "pacg"
+	};
+
+	private static final String[] AARCH64_HWCAP2 = {
+		"dcpodp", "sve2", "sveaes", "svepmull", "svebitperm", "svesha3", "svesm4", "flagm2",
+		"frint", "svei8mm", "svef32mm", "svef64mm", "svebf16", "i8mm", "bf16", "dgh",
+		"rng", "bti", "mte"
+	};
+
+	private final boolean aarch64;
+
+	public CpuFeaturesResolver() {
+		this(isAarch64(System.getProperty("os.arch")));
+	}
+
+	CpuFeaturesResolver(boolean aarch64) {
+		this.aarch64 = aarch64;
+	}
+
+	@Override
+	public Optional<Set<String>> extract(CpuFeatures attribute) {
+		Object event = Jfr.beginAttributeExtraction();
+		Optional<Set<String>> features = aarch64
+			? fromAuxv(Paths.get(attribute.auxv()))
+			: Optional.empty();
+		if (!features.isPresent()) {
+			features = fromCpuInfo(Paths.get(attribute.cpuInfo()));
+		}
+		Jfr.commitAttributeExtraction(event, "CpuFeatures", attribute.cpuInfo(), features.isPresent());
+		return features;
+	}
+
+	@Override public String toString() {
+		return getClass().getSimpleName();
+	}
+
+	static boolean isAarch64(String osArch) {
+		return osArch != null && ArchitectureTable.lookup(osArch)
+			.filter(it -> it.cpuType() == CPUType.ARM && it.bitSize() == BitSize.B64)
+			.isPresent();
+	}
+
+	/**
+	 * @return empty if the file could not be read or has no {@code AT_HWCAP} entry
+	 */
+	static Optional<Set<String>> fromAuxv(Path auxv) {
+		byte[] buffer = new byte[AUXV_BUFFER_SIZE];
+		OptionalInt length = IO.read(auxv, buffer);
+		if (!length.isPresent()) {
+			return Optional.empty();
+		}
+
+		ByteBuffer entries = ByteBuffer.wrap(buffer, 0, length.getAsInt()).order(ByteOrder.nativeOrder());
+		Long hwcap = null;
+		long hwcap2 = 0;
+		while (entries.remaining() >= 2 * Long.BYTES) {
+			long type = entries.getLong();
+			long value = entries.getLong();
+			if (type == AT_NULL) break;
+			if (type == AT_HWCAP) hwcap = value;
+			if (type == AT_HWCAP2) hwcap2 = value;
+		}
+
+		return hwcap != null
+			? Optional.of(aarch64Features(hwcap, hwcap2))
+			: Optional.empty();
+	}
+
+	static Set<String> aarch64Features(long hwcap, long hwcap2) {
+		Set<String> features = new LinkedHashSet<>();
+		addSetBits(features, hwcap, AARCH64_HWCAP);
+		addSetBits(features, hwcap2, AARCH64_HWCAP2);
+		return Collections.unmodifiableSet(features);
+	}
+
+	private static void addSetBits(Set<String> features, long bits, String[] names) {
+		for (int i = 0; i < names.length; i++) {
+			if ((bits & (1L << i)) != 0) {
+				features.add(names[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return features of the first {@code flags} (x86) or {@code Features} (arm) line
+	 */
+	static Optional<Set<String>> fromCpuInfo(Path cpuInfo) {
+		return IO.firstLine(cpuInfo, StandardCharsets.UTF_8, CpuFeaturesResolver::isFeatureLine)
+			.map(CpuFeaturesResolver::parse);
+	}
+
+	private static boolean isFeatureLine(String line) {
+		int separator = line.indexOf(':');
+		if (separator == -1) return false;
+		String key = line.substring(0, separator).trim();
+		return key.equals("flags") || key.equals("Features");
+	}
+
+	/**
+	 * @param value space separated feature names, a {@code /proc/cpuinfo} line prefix is skipped
+	 */
+	public static Set<String> parse(String value) {
+		String features = value.substring(value.indexOf(':') + 1).trim();
+		return features.isEmpty()
+			? Collections.emptySet()
+			: Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(features.split("\\s+"))));
+	}
+}
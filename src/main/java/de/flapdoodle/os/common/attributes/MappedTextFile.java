@@ -34,6 +34,11 @@ public interface MappedTextFile<T> extends Attribute<T> {
     return Charset.defaultCharset();
   }
 
+  @Override
+  default Cost cost() {
+    return Cost.FILE_SYSTEM;
+  }
+
   static <T> TypeCheckPredicate<MappedTextFile<T>> any() {
     return TypeCheckPredicate.isInstanceOf((Class) MappedTextFile.class);
   }
@@ -16,17 +16,28 @@
  */
 package de.flapdoodle.os.common.attributes;
 
-import de.flapdoodle.os.common.io.IO;
+import de.flapdoodle.os.common.jfr.Jfr;
 
-import java.nio.file.Paths;
 import java.util.Optional;
 
 public class MappedTextFileResolver<T> implements AttributeExtractor<T, MappedTextFile<T>> {
 
+  private final TextFileCache cache;
+
+  public MappedTextFileResolver() {
+    this(TextFileCache.disabled());
+  }
+
+  public MappedTextFileResolver(TextFileCache cache) {
+    this.cache = cache;
+  }
+
   @Override
   public Optional<T> extract(MappedTextFile<T> attribute) {
-    return IO.readString(Paths.get(attribute.name()), attribute.charset())
-            .map(attribute.converter());
+    Object event = Jfr.beginAttributeExtraction();
+    Optional<T> content = cache.converted(attribute.name(), attribute.charset(), attribute.converter());
+    Jfr.commitAttributeExtraction(event, "MappedTextFile", attribute.name(), content.isPresent());
+    return content;
   }
 
   @Override public String toString() {
@@ -23,6 +23,11 @@ public interface SystemProperty extends Attribute<String> {
   @Value.Parameter
   String name();
 
+  @Override
+  default Cost cost() {
+    return Cost.IN_MEMORY;
+  }
+
   static TypeCheckPredicate<SystemProperty> any() {
     return TypeCheckPredicate.isInstanceOf(SystemProperty.class);
   }
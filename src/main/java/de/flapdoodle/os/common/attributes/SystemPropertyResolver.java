@@ -16,12 +16,17 @@
  */
 package de.flapdoodle.os.common.attributes;
 
+import de.flapdoodle.os.common.jfr.Jfr;
+
 import java.util.Optional;
 
 public class SystemPropertyResolver implements AttributeExtractor<String, SystemProperty> {
   @Override
   public Optional<String> extract(SystemProperty attribute) {
-    return Optional.ofNullable(System.getProperty(attribute.name()));
+    Object event = Jfr.beginAttributeExtraction();
+    Optional<String> value = Optional.ofNullable(System.getProperty(attribute.name()));
+    Jfr.commitAttributeExtraction(event, "SystemProperty", attribute.name(), value.isPresent());
+    return value;
   }
 
   @Override public String toString() {
@@ -32,6 +32,11 @@ public interface TextFile extends Attribute<String> {
 		return Charset.defaultCharset();
 	}
 
+	@Override
+	default Cost cost() {
+		return Cost.FILE_SYSTEM;
+	}
+
 	static TypeCheckPredicate<TextFile> any() {
 		return TypeCheckPredicate.isInstanceOf(TextFile.class);
 	}
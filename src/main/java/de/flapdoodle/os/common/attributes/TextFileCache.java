@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import de.flapdoodle.os.common.io.IO;
+import de.flapdoodle.os.common.listener.DetectionListener;
+import de.flapdoodle.os.common.listener.DetectionListeners;
+
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * bounded (least recently used) cache for file contents keyed by (path, charset)
+ * and for converted contents keyed by (path, charset, converter),
+ * shared by {@link TextFileResolver} and {@link MappedTextFileResolver}
+ */
+public final class TextFileCache {
+	public static final int DEFAULT_MAX_SIZE = 64;
+
+	private final int maxSize;
+	private final Map<Key, Optional<?>> entries;
+
+	public TextFileCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSize max number of cached entries, 0 disables caching
+	 */
+	public TextFileCache(int maxSize) {
+		if (maxSize < 0) throw new IllegalArgumentException("maxSize < 0: " + maxSize);
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<Key, Optional<?>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Optional<?>> eldest) {
+				return size() > TextFileCache.this.maxSize;
+			}
+		};
+	}
+
+	public static TextFileCache disabled() {
+		return new TextFileCache(0);
+	}
+
+	public Optional<String> content(String path, Charset charset) {
+		return cached(new Key(path, charset, null), () -> IO.readString(Paths.get(path), charset));
+	}
+
+	public <T> Optional<T> converted(String path, Charset charset, Function<String, T> converter) {
+		return cached(new Key(path, charset, converter), () -> content(path, charset).map(converter));
+	}
+
+	public synchronized void invalidate(String path) {
+		entries.keySet().removeIf(key -> key.path.equals(path));
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private <T> Optional<T> cached(Key key, Supplier<Optional<T>> loader) {
+		synchronized (this) {
+			Optional<?> cached = entries.get(key);
+			if (cached != null) {
+				DetectionListeners.current().cacheHit(DetectionListener.Cache.TEXT_FILE);
+				return (Optional<T>) cached;
+			}
+		}
+		if (maxSize > 0) {
+			DetectionListeners.current().cacheMiss(DetectionListener.Cache.TEXT_FILE);
+		}
+		// load outside of the lock, so that different files can be read concurrently
+		Optional<T> loaded = loader.get();
+		if (maxSize > 0) {
+			synchronized (this) {
+				Optional<?> raced = entries.putIfAbsent(key, loaded);
+				if (raced != null) {
+					return (Optional<T>) raced;
+				}
+			}
+		}
+		return loaded;
+	}
+
+	private static final class Key {
+		private final String path;
+		private final Charset charset;
+		private final Function<String, ?> converter;
+
+		private Key(String path, Charset charset, Function<String, ?> converter) {
+			this.path = path;
+			this.charset = charset;
+			this.converter = converter;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			Key other = (Key) o;
+			return path.equals(other.path)
+				&& charset.equals(other.charset)
+				&& Objects.equals(converter, other.converter);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, charset, converter);
+		}
+	}
+}
@@ -16,15 +16,27 @@
  */
 package de.flapdoodle.os.common.attributes;
 
-import de.flapdoodle.os.common.io.IO;
+import de.flapdoodle.os.common.jfr.Jfr;
 
-import java.nio.file.Paths;
 import java.util.Optional;
 
 public class TextFileResolver implements AttributeExtractor<String, TextFile> {
 
+  private final TextFileCache cache;
+
+  public TextFileResolver() {
+    this(TextFileCache.disabled());
+  }
+
+  public TextFileResolver(TextFileCache cache) {
+    this.cache = cache;
+  }
+
   @Override
   public Optional<String> extract(TextFile attribute) {
-    return IO.readString(Paths.get(attribute.name()), attribute.charset());
+    Object event = Jfr.beginAttributeExtraction();
+    Optional<String> content = cache.content(attribute.name(), attribute.charset());
+    Jfr.commitAttributeExtraction(event, "TextFile", attribute.name(), content.isPresent());
+    return content;
   }
 }
@@ -16,31 +16,137 @@
  */
 package de.flapdoodle.os.common.io;
 
+import de.flapdoodle.os.common.jfr.Jfr;
+import de.flapdoodle.os.common.listener.DetectionListeners;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 public abstract class IO {
 
   private static Logger logger= LoggerFactory.getLogger(IO.class);
 
+  static final int BUFFER_SIZE = 8 * 1024;
+  // some vms reserve header words in an array
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  // release files are tiny, and /proc or /sys files report a size of 0, so we don't size by file length.
+  // a single pooled buffer, not bound to a thread (a thread local would allocate one per virtual thread),
+  // concurrent reads allocate their own buffer instead of waiting for it
+  private static final AtomicReference<byte[]> BUFFER = new AtomicReference<>(new byte[BUFFER_SIZE]);
+
   private IO() {
 
   }
 
+  /**
+   * reads into a reused buffer and decodes directly from it, larger files are read into a growing copy.
+   * most release files do not exist on a host, and a stat is about ten times cheaper than the
+   * {@link NoSuchFileException} of a failed open (see IOBenchmark), so missing files are checked first.
+   * @return empty if the file does not exist or could not be read
+   */
   public static Optional<String> readString(Path path, Charset charset) {
-    if (Files.exists(path)) {
-      try {
-        return Optional.of(new String(Files.readAllBytes(path), charset));
-      } catch (IOException e) {
-        logger.error("could not read "+path, e);
+    if (!Files.exists(path)) {
+      return Optional.empty();
+    }
+    Object event = Jfr.beginFileRead();
+    byte[] pooled = BUFFER.getAndSet(null);
+    try (InputStream in = Files.newInputStream(path)) {
+      byte[] buffer = pooled != null ? pooled : new byte[BUFFER_SIZE];
+      int length = 0;
+      int read;
+      while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+        length += read;
+        if (length == buffer.length) {
+          buffer = Arrays.copyOf(buffer, grow(buffer.length));
+        }
+      }
+      DetectionListeners.current().bytesRead(path, length);
+      Jfr.commitFileRead(event, path, length);
+      return Optional.of(new String(buffer, 0, length, charset));
+    } catch (NoSuchFileException nsx) {
+      return Optional.empty();
+    } catch (IOException e) {
+      logger.error("could not read "+path, e);
+    } finally {
+      if (pooled != null) {
+        BUFFER.set(pooled);
       }
     }
     return Optional.empty();
   }
+
+  private static int grow(int length) throws IOException {
+    if (length > MAX_ARRAY_SIZE / 2) {
+      if (length == MAX_ARRAY_SIZE) {
+        throw new IOException("file is larger than " + MAX_ARRAY_SIZE + " bytes");
+      }
+      return MAX_ARRAY_SIZE;
+    }
+    return length * 2;
+  }
+
+  /**
+   * reads at most {@code buffer.length} bytes, for binary files with a known upper size like {@code /proc/self/auxv}
+   * @return number of bytes read, empty if the file does not exist or could not be read
+   */
+  public static OptionalInt read(Path path, byte[] buffer) {
+    Object event = Jfr.beginFileRead();
+    try (InputStream in = Files.newInputStream(path)) {
+      int length = 0;
+      int read;
+      while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1) {
+        length += read;
+      }
+      DetectionListeners.current().bytesRead(path, length);
+      Jfr.commitFileRead(event, path, length);
+      return OptionalInt.of(length);
+    } catch (NoSuchFileException nsx) {
+      return OptionalInt.empty();
+    } catch (IOException e) {
+      logger.error("could not read "+path, e);
+    }
+    return OptionalInt.empty();
+  }
+
+  /**
+   * reads line by line and stops at the first matching line, for large files like {@code /proc/cpuinfo}
+   * @return empty if no line matches, the file does not exist or could not be read
+   */
+  public static Optional<String> firstLine(Path path, Charset charset, Predicate<String> filter) {
+    Object event = Jfr.beginFileRead();
+    long length = 0;
+    try (BufferedReader reader = Files.newBufferedReader(path, charset)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        length += line.length() + 1;
+        if (filter.test(line)) {
+          return Optional.of(line);
+        }
+      }
+      return Optional.empty();
+    } catch (NoSuchFileException nsx) {
+      return Optional.empty();
+    } catch (IOException e) {
+      logger.error("could not read "+path, e);
+      return Optional.empty();
+    } finally {
+      if (length > 0) {
+        DetectionListeners.current().bytesRead(path, length);
+        Jfr.commitFileRead(event, path, length);
+      }
+    }
+  }
 }
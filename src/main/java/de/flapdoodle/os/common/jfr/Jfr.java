@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.jfr;
+
+import de.flapdoodle.os.Platform;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * entry points for the flight recorder events, safe to call on a jvm without jdk.jfr.
+ * every begin method returns null if jfr is not available or the event is not enabled in a running recording,
+ * commit methods ignore a null event, so without a recording there is nothing left to do for the JIT.
+ * disable with -Dde.flapdoodle.os.jfr=false
+ */
+public abstract class Jfr {
+
+	private static final boolean AVAILABLE = available();
+
+	private Jfr() {
+		// no instance
+	}
+
+	public static Object beginPlatformDetection() {
+		return AVAILABLE ? JfrEvents.beginPlatformDetection() : null;
+	}
+
+	public static void commitPlatformDetection(Object event, String method, Platform platform, int candidates) {
+		if (event != null) JfrEvents.commitPlatformDetection(event, method, platform, candidates);
+	}
+
+	public static void commitPlatformDetection(Object event, String method, List<Platform> platforms) {
+		if (event != null) JfrEvents.commitPlatformDetection(event, method, platforms.isEmpty() ? null : platforms.get(0), platforms.size());
+	}
+
+	public static Object beginAttributeExtraction() {
+		return AVAILABLE ? JfrEvents.beginAttributeExtraction() : null;
+	}
+
+	public static void commitAttributeExtraction(Object event, String attributeType, String name, boolean found) {
+		if (event != null) JfrEvents.commitAttributeExtraction(event, attributeType, name, found);
+	}
+
+	public static Object beginFileRead() {
+		return AVAILABLE ? JfrEvents.beginFileRead() : null;
+	}
+
+	public static void commitFileRead(Object event, Path path, long bytes) {
+		if (event != null) JfrEvents.commitFileRead(event, path, bytes);
+	}
+
+	public static Object beginPeculiarityEvaluation() {
+		return AVAILABLE ? JfrEvents.beginPeculiarityEvaluation() : null;
+	}
+
+	public static void commitPeculiarityEvaluation(Object event, Object attribute, Object match, boolean matches) {
+		if (event != null) JfrEvents.commitPeculiarityEvaluation(event, attribute, match, matches);
+	}
+
+	private static boolean available() {
+		if ("false".equals(System.getProperty("de.flapdoodle.os.jfr"))) {
+			return false;
+		}
+		try {
+			Class.forName("jdk.jfr.Event", false, Jfr.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError ex) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.jfr;
+
+import de.flapdoodle.os.Distribution;
+import de.flapdoodle.os.Platform;
+import de.flapdoodle.os.Version;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.file.Path;
+
+/**
+ * only loaded through {@link Jfr} if jdk.jfr is available
+ */
+final class JfrEvents {
+
+	private JfrEvents() {
+		// no instance
+	}
+
+	static Object beginPlatformDetection() {
+		return begin(new PlatformDetection());
+	}
+
+	static void commitPlatformDetection(Object event, String method, Platform platform, int candidates) {
+		PlatformDetection detection = (PlatformDetection) event;
+		detection.method = method;
+		if (platform != null) {
+			detection.os = platform.operatingSystem().name();
+			detection.architecture = String.valueOf(platform.architecture());
+			detection.distribution = platform.distribution().map(Distribution::name).orElse(null);
+			detection.version = platform.version().map(Version::name).orElse(null);
+		}
+		detection.candidates = candidates;
+		detection.commit();
+	}
+
+	static Object beginAttributeExtraction() {
+		return begin(new AttributeExtraction());
+	}
+
+	static void commitAttributeExtraction(Object event, String attributeType, String name, boolean found) {
+		AttributeExtraction extraction = (AttributeExtraction) event;
+		extraction.attributeType = attributeType;
+		extraction.name = name;
+		extraction.found = found;
+		extraction.commit();
+	}
+
+	static Object beginFileRead() {
+		return begin(new FileRead());
+	}
+
+	static void commitFileRead(Object event, Path path, long bytes) {
+		FileRead read = (FileRead) event;
+		read.path = path.toString();
+		read.bytes = bytes;
+		read.commit();
+	}
+
+	static Object beginPeculiarityEvaluation() {
+		return begin(new PeculiarityEvaluation());
+	}
+
+	static void commitPeculiarityEvaluation(Object event, Object attribute, Object match, boolean matches) {
+		PeculiarityEvaluation evaluation = (PeculiarityEvaluation) event;
+		evaluation.attribute = String.valueOf(attribute);
+		evaluation.match = String.valueOf(match);
+		evaluation.matches = matches;
+		evaluation.commit();
+	}
+
+	private static Event begin(Event event) {
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Name("de.flapdoodle.os.PlatformDetection")
+	@Label("Platform Detection")
+	@Category({"Flapdoodle", "OS Detection"})
+	@StackTrace(false)
+	static class PlatformDetection extends Event {
+		@Label("Method")
+		String method;
+		@Label("OS")
+		String os;
+		@Label("Architecture")
+		String architecture;
+		@Label("Distribution")
+		String distribution;
+		@Label("Version")
+		String version;
+		@Label("Candidates")
+		@Description("number of matching platforms")
+		int candidates;
+	}
+
+	@Name("de.flapdoodle.os.AttributeExtraction")
+	@Label("Attribute Extraction")
+	@Category({"Flapdoodle", "OS Detection"})
+	@StackTrace(false)
+	static class AttributeExtraction extends Event {
+		@Label("Attribute Type")
+		String attributeType;
+		@Label("Name")
+		@Description("system property name or file path")
+		String name;
+		@Label("Found")
+		boolean found;
+	}
+
+	@Name("de.flapdoodle.os.FileRead")
+	@Label("File Read")
+	@Category({"Flapdoodle", "OS Detection"})
+	@StackTrace(false)
+	static class FileRead extends Event {
+		@Label("Path")
+		String path;
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+	}
+
+	@Name("de.flapdoodle.os.PeculiarityEvaluation")
+	@Label("Peculiarity Evaluation")
+	@Category({"Flapdoodle", "OS Detection"})
+	@StackTrace(false)
+	static class PeculiarityEvaluation extends Event {
+		@Label("Attribute")
+		String attribute;
+		@Label("Match")
+		String match;
+		@Label("Matches")
+		boolean matches;
+	}
+}
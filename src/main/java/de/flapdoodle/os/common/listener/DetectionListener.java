@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.listener;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.matcher.Match;
+
+import java.nio.file.Path;
+
+/**
+ * callbacks for detection metrics, every method is a no-op by default.
+ * implementations are called on the detecting thread and should return fast (e.g. increment a meter).
+ */
+public interface DetectionListener {
+
+	enum Phase {
+		OS,
+		ARCHITECTURE,
+		DISTRIBUTION,
+		VERSION
+	}
+
+	enum Cache {
+		/**
+		 * attributes shared within one detection run
+		 */
+		ATTRIBUTE,
+		/**
+		 * file contents, see {@link de.flapdoodle.os.common.attributes.TextFileCache}
+		 */
+		TEXT_FILE,
+		/**
+		 * detected platforms, see {@link de.flapdoodle.os.PlatformCache}
+		 */
+		PLATFORM
+	}
+
+	DetectionListener NOOP = new DetectionListener() {
+		@Override
+		public String toString() {
+			return "NOOP";
+		}
+	};
+
+	default void phase(Phase phase, long nanos) {
+	}
+
+	default void attributeExtracted(Attribute<?> attribute, boolean found, long nanos) {
+	}
+
+	default void matcherEvaluated(Attribute<?> attribute, Match<?> match, boolean matches, long nanos) {
+	}
+
+	default void bytesRead(Path path, long bytes) {
+	}
+
+	default void cacheHit(Cache cache) {
+	}
+
+	default void cacheMiss(Cache cache) {
+	}
+
+	default DetectionListener join(DetectionListener other) {
+		DetectionListener first = this;
+		return new DetectionListener() {
+			@Override
+			public void phase(Phase phase, long nanos) {
+				first.phase(phase, nanos);
+				other.phase(phase, nanos);
+			}
+
+			@Override
+			public void attributeExtracted(Attribute<?> attribute, boolean found, long nanos) {
+				first.attributeExtracted(attribute, found, nanos);
+				other.attributeExtracted(attribute, found, nanos);
+			}
+
+			@Override
+			public void matcherEvaluated(Attribute<?> attribute, Match<?> match, boolean matches, long nanos) {
+				first.matcherEvaluated(attribute, match, matches, nanos);
+				other.matcherEvaluated(attribute, match, matches, nanos);
+			}
+
+			@Override
+			public void bytesRead(Path path, long bytes) {
+				first.bytesRead(path, bytes);
+				other.bytesRead(path, bytes);
+			}
+
+			@Override
+			public void cacheHit(Cache cache) {
+				first.cacheHit(cache);
+				other.cacheHit(cache);
+			}
+
+			@Override
+			public void cacheMiss(Cache cache) {
+				first.cacheMiss(cache);
+				other.cacheMiss(cache);
+			}
+
+			@Override
+			public String toString() {
+				return first + " + " + other;
+			}
+		};
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.listener;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.AttributeExtractor;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.matcher.Match;
+import de.flapdoodle.os.common.matcher.Matcher;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * process wide {@link DetectionListener} and listeners scoped to the current thread (see {@link #with(DetectionListener, Supplier)}).
+ * without any listener every hook calls the {@link DetectionListener#NOOP} listener and no time is measured.
+ */
+public abstract class DetectionListeners {
+
+	private static volatile DetectionListener global = DetectionListener.NOOP;
+	private static final ThreadLocal<DetectionListener> scoped = new ThreadLocal<>();
+	// skips the thread local lookup as long as no scope is open
+	private static final AtomicInteger scopes = new AtomicInteger();
+
+	private DetectionListeners() {
+		// no instance
+	}
+
+	public static DetectionListener current() {
+		DetectionListener listener = global;
+		if (scopes.get() == 0) {
+			return listener;
+		}
+		DetectionListener local = scoped.get();
+		if (local == null) {
+			return listener;
+		}
+		return listener == DetectionListener.NOOP
+			? local
+			: listener.join(local);
+	}
+
+	public static synchronized void register(DetectionListener listener) {
+		global = global == DetectionListener.NOOP
+			? listener
+			: global.join(listener);
+	}
+
+	/**
+	 * removes all process wide listeners, scoped listeners are not affected
+	 */
+	public static synchronized void reset() {
+		global = DetectionListener.NOOP;
+	}
+
+	/**
+	 * calls action with listener registered for the current thread only, nested scopes are joined
+	 */
+	public static <T> T with(DetectionListener listener, Supplier<T> action) {
+		DetectionListener outer = scoped.get();
+		scoped.set(outer == null ? listener : outer.join(listener));
+		scopes.incrementAndGet();
+		try {
+			return action.get();
+		} finally {
+			scopes.decrementAndGet();
+			if (outer == null) {
+				scoped.remove();
+			} else {
+				scoped.set(outer);
+			}
+		}
+	}
+
+	public static <T> T phase(DetectionListener.Phase phase, Supplier<T> action) {
+		DetectionListener listener = current();
+		if (listener == DetectionListener.NOOP) {
+			return action.get();
+		}
+		long start = System.nanoTime();
+		try {
+			return action.get();
+		} finally {
+			listener.phase(phase, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @return delegate if there is no listener
+	 */
+	public static AttributeExtractorLookup wrap(AttributeExtractorLookup delegate) {
+		DetectionListener listener = current();
+		return listener != DetectionListener.NOOP
+			? new AttributeExtractorLookupWrapper(delegate, listener)
+			: delegate;
+	}
+
+	/**
+	 * calls matcher and reports the result together with the attribute the value was extracted from
+	 */
+	public static <T, M extends Match<T>> boolean match(Attribute<T> attribute, Matcher<T, M> matcher, Optional<T> value, M match) {
+		return match(current(), attribute, matcher, value, match);
+	}
+
+	public static <T, M extends Match<T>> boolean match(DetectionListener listener, Attribute<T> attribute, Matcher<T, M> matcher, Optional<T> value, M match) {
+		if (listener == DetectionListener.NOOP) {
+			return matcher.match(value, match);
+		}
+		long start = System.nanoTime();
+		boolean matches = matcher.match(value, match);
+		listener.matcherEvaluated(attribute, match, matches, System.nanoTime() - start);
+		return matches;
+	}
+
+	static class AttributeExtractorLookupWrapper implements AttributeExtractorLookup {
+		private final AttributeExtractorLookup delegate;
+		private final DetectionListener listener;
+
+		private AttributeExtractorLookupWrapper(AttributeExtractorLookup delegate, DetectionListener listener) {
+			this.delegate = delegate;
+			this.listener = listener;
+		}
+
+		@Override
+		public <T, A extends Attribute<T>> Optional<AttributeExtractor<T, A>> extractor(A attribute) {
+			return delegate.<T, A>extractor(attribute)
+				.map(extractor -> it -> {
+					long start = System.nanoTime();
+					Optional<T> value = extractor.extract(it);
+					listener.attributeExtracted(it, value.isPresent(), System.nanoTime() - start);
+					return value;
+				});
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.listener;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.matcher.Match;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * keeps the last events of a detection in a fixed size ring buffer.
+ * an event is stored as two longs (kind, id of the attribute or match, result and duration)
+ * and the id of the attribute a match was evaluated on,
+ * attributes and matches are interned once, so recording does not allocate.
+ * {@link #dump()} renders the buffer as tree of phases and the extractions and matches inside each phase.
+ */
+public final class ExplainRecorder implements DetectionListener {
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private static final int PHASE = 0;
+	private static final int ATTRIBUTE = 1;
+	private static final int MATCH = 2;
+
+	private final long[] codes;
+	private final long[] durations;
+	private final int[] matchedAttributes;
+	private final Map<Object, Integer> ids = new HashMap<>();
+	private final List<Object> byId = new ArrayList<>();
+	private long count = 0;
+
+	public ExplainRecorder() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ExplainRecorder(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity < 1: " + capacity);
+		this.codes = new long[capacity];
+		this.durations = new long[capacity];
+		this.matchedAttributes = new int[capacity];
+	}
+
+	@Override
+	public synchronized void phase(Phase phase, long nanos) {
+		record(PHASE, phase.ordinal(), true, nanos);
+	}
+
+	@Override
+	public synchronized void attributeExtracted(Attribute<?> attribute, boolean found, long nanos) {
+		record(ATTRIBUTE, id(attribute), found, nanos);
+	}
+
+	@Override
+	public synchronized void matcherEvaluated(Attribute<?> attribute, Match<?> match, boolean matches, long nanos) {
+		matchedAttributes[record(MATCH, id(match), matches, nanos)] = id(attribute);
+	}
+
+	public synchronized void clear() {
+		count = 0;
+	}
+
+	public synchronized String dump() {
+		StringBuilder sb = new StringBuilder();
+		String nl = System.lineSeparator();
+
+		long first = Math.max(0, count - codes.length);
+		if (first > 0) {
+			sb.append("(").append(first).append(" older events dropped)").append(nl);
+		}
+
+		List<String> pending = new ArrayList<>();
+		for (long i = first; i < count; i++) {
+			int slot = (int) (i % codes.length);
+			long code = codes[slot];
+			int kind = (int) (code >>> 33);
+			boolean result = ((code >>> 32) & 1) == 1;
+			int id = (int) code;
+			String duration = micros(durations[slot]);
+
+			switch (kind) {
+				case PHASE:
+					sb.append(Phase.values()[id]).append(" (").append(duration).append(")").append(nl);
+					pending.forEach(line -> sb.append("  ").append(line).append(nl));
+					pending.clear();
+					break;
+				case ATTRIBUTE:
+					pending.add("attribute " + byId.get(id) + ": " + (result ? "found" : "not found") + " (" + duration + ")");
+					break;
+				default:
+					pending.add("match " + byId.get(matchedAttributes[slot]) + " ~ " + byId.get(id) + ": " + result + " (" + duration + ")");
+					break;
+			}
+		}
+		pending.forEach(line -> sb.append(line).append(nl));
+		return sb.toString();
+	}
+
+	private int record(int kind, int id, boolean result, long nanos) {
+		int slot = (int) (count % codes.length);
+		codes[slot] = ((long) kind << 33) | ((result ? 1L : 0L) << 32) | (id & 0xffffffffL);
+		durations[slot] = nanos;
+		count++;
+		return slot;
+	}
+
+	private int id(Object value) {
+		Integer id = ids.get(value);
+		if (id == null) {
+			id = byId.size();
+			byId.add(value);
+			ids.put(value, id);
+		}
+		return id;
+	}
+
+	private static String micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+	}
+}
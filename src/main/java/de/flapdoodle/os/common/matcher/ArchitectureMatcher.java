@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.matcher;
+
+import java.util.Optional;
+
+public class ArchitectureMatcher implements Matcher<String, ArchitectureMatch> {
+
+	@Override
+	public boolean match(Optional<String> value, ArchitectureMatch match) {
+		return value.flatMap(ArchitectureTable::lookup)
+			.map(match::equals)
+			.orElse(false);
+	}
+
+	@Override public String toString() {
+		return getClass().getSimpleName();
+	}
+}
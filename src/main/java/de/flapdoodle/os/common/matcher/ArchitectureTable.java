@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.matcher;
+
+import de.flapdoodle.os.BitSize;
+import de.flapdoodle.os.CPUType;
+import de.flapdoodle.os.Endianness;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * precomputed {@code os.arch} lookup: the value is lower cased and stripped of everything but letters and digits
+ * ({@code x86_64} becomes {@code x8664}), then resolved with a single map lookup.
+ */
+public abstract class ArchitectureTable {
+
+	private static final Map<String, ArchitectureMatch> TABLE = table();
+
+	private ArchitectureTable() {
+		// no instance
+	}
+
+	public static Optional<ArchitectureMatch> lookup(String osArch) {
+		return Optional.ofNullable(TABLE.get(normalize(osArch)));
+	}
+
+	public static Map<String, ArchitectureMatch> entries() {
+		return TABLE;
+	}
+
+	static String normalize(String value) {
+		String lowerCase = value.toLowerCase(Locale.ROOT);
+		StringBuilder sb = new StringBuilder(lowerCase.length());
+		for (int i = 0; i < lowerCase.length(); i++) {
+			char c = lowerCase.charAt(i);
+			if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static Map<String, ArchitectureMatch> table() {
+		Map<String, ArchitectureMatch> table = new HashMap<>();
+		put(table, CPUType.X86, BitSize.B64, Endianness.LITTLE, "x8664", "amd64", "ia32e", "em64t", "x64");
+		put(table, CPUType.X86, BitSize.B32, Endianness.LITTLE, "x8632", "x86", "i386", "i486", "i586", "i686", "ia32", "x32");
+		put(table, CPUType.ITANIUM, BitSize.B64, Endianness.LITTLE, "ia64", "ia64w", "itanium64");
+		put(table, CPUType.ITANIUM, BitSize.B32, Endianness.LITTLE, "ia64n");
+		put(table, CPUType.SPARC, BitSize.B32, Endianness.BIG, "sparc", "sparc32");
+		put(table, CPUType.SPARC, BitSize.B64, Endianness.BIG, "sparcv9", "sparc64");
+		put(table, CPUType.ARM, BitSize.B32, Endianness.LITTLE, "arm", "arm32");
+		put(table, CPUType.ARM, BitSize.B64, Endianness.LITTLE, "aarch64");
+		put(table, CPUType.MIPS, BitSize.B32, Endianness.BIG, "mips", "mips32");
+		put(table, CPUType.MIPS, BitSize.B32, Endianness.LITTLE, "mipsel", "mips32el");
+		put(table, CPUType.MIPS, BitSize.B64, Endianness.BIG, "mips64");
+		put(table, CPUType.MIPS, BitSize.B64, Endianness.LITTLE, "mips64el");
+		put(table, CPUType.PPC, BitSize.B32, Endianness.BIG, "ppc", "ppc32");
+		put(table, CPUType.PPC, BitSize.B32, Endianness.LITTLE, "ppcle", "ppc32le");
+		put(table, CPUType.PPC, BitSize.B64, Endianness.BIG, "ppc64");
+		put(table, CPUType.PPC, BitSize.B64, Endianness.LITTLE, "ppc64le");
+		put(table, CPUType.S390, BitSize.B32, Endianness.BIG, "s390");
+		put(table, CPUType.S390, BitSize.B64, Endianness.BIG, "s390x");
+		put(table, CPUType.RISCV, BitSize.B32, Endianness.LITTLE, "riscv32");
+		put(table, CPUType.RISCV, BitSize.B64, Endianness.LITTLE, "riscv64");
+		return Collections.unmodifiableMap(table);
+	}
+
+	private static void put(Map<String, ArchitectureMatch> table, CPUType cpuType, BitSize bitSize, Endianness endianness, String... osArchs) {
+		ArchitectureMatch match = ImmutableArchitectureMatch.of(cpuType, bitSize, endianness);
+		for (String osArch : osArchs) {
+			ArchitectureMatch old = table.put(osArch, match);
+			if (old != null) {
+				throw new IllegalArgumentException("duplicate os.arch " + osArch + ": " + old + ", " + match);
+			}
+		}
+	}
+}
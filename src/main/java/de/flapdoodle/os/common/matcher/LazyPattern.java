@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.matcher;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * a regex source which is compiled on first use of {@link #pattern()}.
+ * instances created by {@link #of(String, int)} are interned by source and flags, so every catalog entry
+ * using the same pattern shares one instance (and at most one compiled {@link Pattern}).
+ * the registry only keeps weak references, a pattern no catalog entry uses any more can be collected.
+ * literal shapes (see {@link SpecializedPattern}) are matched without ever compiling the pattern,
+ * so a syntax error may only show up on first use.
+ */
+public final class LazyPattern {
+	private static final ConcurrentMap<Key, Registered> REGISTRY = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<LazyPattern> COLLECTED = new ReferenceQueue<>();
+
+	private final String source;
+	private final int flags;
+	private final SpecializedPattern specialized;
+	private volatile Pattern compiled;
+
+	private LazyPattern(String source, int flags, Pattern compiled) {
+		this.source = source;
+		this.flags = flags;
+		this.compiled = compiled;
+		this.specialized = SpecializedPattern.of(this);
+	}
+
+	public String source() {
+		return source;
+	}
+
+	public int flags() {
+		return flags;
+	}
+
+	public boolean isCompiled() {
+		return compiled != null;
+	}
+
+	public Pattern pattern() {
+		Pattern pattern = compiled;
+		if (pattern == null) {
+			pattern = Pattern.compile(source, flags);
+			compiled = pattern;
+		}
+		return pattern;
+	}
+
+	public SpecializedPattern specialized() {
+		return specialized;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		LazyPattern other = (LazyPattern) o;
+		return flags == other.flags && source.equals(other.source);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * source.hashCode() + flags;
+	}
+
+	@Override
+	public String toString() {
+		return source;
+	}
+
+	public static LazyPattern of(String source) {
+		return of(source, 0);
+	}
+
+	public static LazyPattern of(String source, int flags) {
+		expungeCollected();
+		Key key = new Key(source, flags);
+		while (true) {
+			Registered registered = REGISTRY.get(key);
+			LazyPattern pattern = registered != null ? registered.get() : null;
+			if (pattern != null) {
+				return pattern;
+			}
+			LazyPattern created = new LazyPattern(source, flags, null);
+			Registered replacement = new Registered(key, created);
+			boolean stored = registered == null
+				? REGISTRY.putIfAbsent(key, replacement) == null
+				: REGISTRY.replace(key, registered, replacement);
+			if (stored) {
+				return created;
+			}
+		}
+	}
+
+	/**
+	 * wraps an already compiled pattern, not interned
+	 */
+	public static LazyPattern of(Pattern pattern) {
+		return new LazyPattern(pattern.pattern(), pattern.flags(), pattern);
+	}
+
+	static int registrySize() {
+		expungeCollected();
+		return REGISTRY.size();
+	}
+
+	private static void expungeCollected() {
+		Reference<? extends LazyPattern> collected;
+		while ((collected = COLLECTED.poll()) != null) {
+			REGISTRY.remove(((Registered) collected).key, collected);
+		}
+	}
+
+	private static final class Registered extends WeakReference<LazyPattern> {
+		private final Key key;
+
+		private Registered(Key key, LazyPattern pattern) {
+			super(pattern, COLLECTED);
+			this.key = key;
+		}
+	}
+
+	private static final class Key {
+		private final String source;
+		private final int flags;
+
+		private Key(String source, int flags) {
+			this.source = Objects.requireNonNull(source, "source is null");
+			this.flags = flags;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			Key other = (Key) o;
+			return flags == other.flags && source.equals(other.source);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * source.hashCode() + flags;
+		}
+	}
+}
@@ -26,7 +26,7 @@ public class LsbReleaseFileEntryMatcher implements Matcher<LsbReleaseFile, LsbRe
   public boolean match(Optional<LsbReleaseFile> value, LsbReleaseFileMapEntry match) {
     return value.map(map -> {
       String mapValue = map.attributes().get(match.key());
-      return mapValue != null && match.valuePattern().matcher(mapValue).matches();
+      return mapValue != null && match.specializedValuePattern().matches(mapValue);
     }).orElse(false);
   }
 }
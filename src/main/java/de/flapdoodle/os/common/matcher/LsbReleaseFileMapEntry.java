@@ -28,5 +28,17 @@ public interface LsbReleaseFileMapEntry extends Match<LsbReleaseFile> {
   String key();
 
   @Value.Parameter
-  Pattern valuePattern();
+  LazyPattern lazyValuePattern();
+
+  default Pattern valuePattern() {
+    return lazyValuePattern().pattern();
+  }
+
+  default SpecializedPattern specializedValuePattern() {
+    return lazyValuePattern().specialized();
+  }
+
+  static LsbReleaseFileMapEntry of(String key, Pattern valuePattern) {
+    return ImmutableLsbReleaseFileMapEntry.of(key, LazyPattern.of(valuePattern));
+  }
 }
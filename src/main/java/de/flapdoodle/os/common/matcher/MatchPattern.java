@@ -24,5 +24,17 @@ import java.util.regex.Pattern;
 @Immutable
 public interface MatchPattern extends Match<String> {
 	@Parameter
-	Pattern pattern();
+	LazyPattern lazyPattern();
+
+	default Pattern pattern() {
+		return lazyPattern().pattern();
+	}
+
+	default SpecializedPattern specializedPattern() {
+		return lazyPattern().specialized();
+	}
+
+	static MatchPattern of(Pattern pattern) {
+		return ImmutableMatchPattern.of(LazyPattern.of(pattern));
+	}
 }
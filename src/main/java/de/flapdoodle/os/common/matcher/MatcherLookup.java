@@ -59,6 +59,8 @@ public interface MatcherLookup {
 		return MatcherLookup.forType(MatchPattern.class, new PatternMatcher())
 						.join(forType(OsReleaseFileMapEntry.class, new OsReleaseFileEntryMatcher()))
 						.join(forType(LsbReleaseFileMapEntry.class, new LsbReleaseFileEntryMatcher()))
+						.join(forType(ArchitectureMatch.class, new ArchitectureMatcher()))
+						.join(forType(CpuFeatureMatch.class, new CpuFeatureMatcher()))
 						.join(failing());
 	}
 }
@@ -16,18 +16,43 @@
  */
 package de.flapdoodle.os.common.matcher;
 
+import de.flapdoodle.os.BitSize;
+import de.flapdoodle.os.CPUType;
+import de.flapdoodle.os.Endianness;
+
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
 public class Matchers {
   public static MatchPattern matchPattern(String pattern) {
-    return ImmutableMatchPattern.of(Pattern.compile(pattern));
+    return ImmutableMatchPattern.of(LazyPattern.of(pattern));
+  }
+
+  public static MatchPattern matchPattern(Pattern pattern) {
+    return MatchPattern.of(pattern);
   }
 
   public static OsReleaseFileMapEntry osReleaseFileEntry(String key, String valuePattern) {
-    return ImmutableOsReleaseFileMapEntry.of(key, Pattern.compile(valuePattern));
+    return ImmutableOsReleaseFileMapEntry.of(key, LazyPattern.of(valuePattern));
+  }
+
+  public static OsReleaseFileMapEntry osReleaseFileEntry(String key, Pattern valuePattern) {
+    return OsReleaseFileMapEntry.of(key, valuePattern);
   }
 
   public static LsbReleaseFileMapEntry lsbReleaseFileEntry(String key, String valuePattern) {
-    return ImmutableLsbReleaseFileMapEntry.of(key, Pattern.compile(valuePattern));
+    return ImmutableLsbReleaseFileMapEntry.of(key, LazyPattern.of(valuePattern));
+  }
+
+  public static LsbReleaseFileMapEntry lsbReleaseFileEntry(String key, Pattern valuePattern) {
+    return LsbReleaseFileMapEntry.of(key, valuePattern);
+  }
+
+  public static CpuFeatureMatch cpuFeatures(String... features) {
+    return ImmutableCpuFeatureMatch.of(Arrays.asList(features));
+  }
+
+  public static ArchitectureMatch architecture(CPUType cpuType, BitSize bitSize, Endianness endianness) {
+    return ImmutableArchitectureMatch.of(cpuType, bitSize, endianness);
   }
 }
@@ -25,7 +25,7 @@ public class OsReleaseFileEntryMatcher implements Matcher<OsReleaseFile, OsRelea
   public boolean match(Optional<OsReleaseFile> value, OsReleaseFileMapEntry match) {
     return value.map(map -> {
       String mapValue = map.attributes().get(match.key());
-      return mapValue != null && match.valuePattern().matcher(mapValue).matches();
+      return mapValue != null && match.specializedValuePattern().matches(mapValue);
     }).orElse(false);
   }
 }
@@ -27,5 +27,17 @@ public interface OsReleaseFileMapEntry extends Match<OsReleaseFile> {
   String key();
 
   @Value.Parameter
-  Pattern valuePattern();
+  LazyPattern lazyValuePattern();
+
+  default Pattern valuePattern() {
+    return lazyValuePattern().pattern();
+  }
+
+  default SpecializedPattern specializedValuePattern() {
+    return lazyValuePattern().specialized();
+  }
+
+  static OsReleaseFileMapEntry of(String key, Pattern valuePattern) {
+    return ImmutableOsReleaseFileMapEntry.of(key, LazyPattern.of(valuePattern));
+  }
 }
@@ -22,7 +22,7 @@ public class PatternMatcher implements Matcher<String, MatchPattern> {
 
 	@Override
 	public boolean match(Optional<String> value, MatchPattern match) {
-		return value.map(it -> match.pattern().matcher(it).find())
+		return value.map(it -> match.specializedPattern().find(it))
 				.orElse(false);
 	}
 
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.matcher;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * a {@link Pattern} with a fast path for literal shapes like {@code Linux}, {@code .*amzn2.*},
+ * {@code ^(amd64|x64)$} or {@code \Q18.10\E.*}, which are matched with set lookups,
+ * {@code startsWith}, {@code endsWith} or {@code contains} instead of the regex engine.
+ * real regular expressions (and values containing line terminators) use the compiled pattern,
+ * which is only compiled on first use.
+ */
+public final class SpecializedPattern {
+	private final LazyPattern pattern;
+	private final Shape shape;
+
+	private SpecializedPattern(LazyPattern pattern, Shape shape) {
+		this.pattern = pattern;
+		this.shape = shape;
+	}
+
+	public Pattern pattern() {
+		return pattern.pattern();
+	}
+
+	public boolean isSpecialized() {
+		return shape != null;
+	}
+
+	/**
+	 * @return literal alternatives if the pattern only matches these exact values with {@link #matches(String)}
+	 */
+	public Optional<Set<String>> exactLiterals() {
+		return shape != null && !shape.leadingWildcard && !shape.trailingWildcard
+			? Optional.of(shape.literals)
+			: Optional.empty();
+	}
+
+	/**
+	 * same as {@code pattern().matcher(value).find()}
+	 */
+	public boolean find(String value) {
+		if (shape != null && !containsLineTerminator(value)) {
+			return shape.test(value,
+				shape.caret && !shape.leadingWildcard,
+				shape.dollar && !shape.trailingWildcard);
+		}
+		return pattern.pattern().matcher(value).find();
+	}
+
+	/**
+	 * same as {@code pattern().matcher(value).matches()}
+	 */
+	public boolean matches(String value) {
+		if (shape != null && !containsLineTerminator(value)) {
+			return shape.test(value, !shape.leadingWildcard, !shape.trailingWildcard);
+		}
+		return pattern.pattern().matcher(value).matches();
+	}
+
+	@Override
+	public String toString() {
+		return pattern.toString();
+	}
+
+	public static SpecializedPattern of(Pattern pattern) {
+		return LazyPattern.of(pattern).specialized();
+	}
+
+	static SpecializedPattern of(LazyPattern pattern) {
+		return new SpecializedPattern(pattern, pattern.flags() == 0
+			? Shape.parse(pattern.source())
+			: null);
+	}
+
+	private static boolean containsLineTerminator(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			switch (value.charAt(i)) {
+				case '\n':
+				case '\r':
+				case '\u0085':
+				case 0x2028:
+				case 0x2029:
+					return true;
+				default:
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * [^] [.*] (literal | (literal|literal|...)) [.*] [$]
+	 */
+	static final class Shape {
+		private static final String META = "\\^$.|?*+()[]{}";
+
+		private final boolean caret;
+		private final boolean leadingWildcard;
+		private final Set<String> literals;
+		private final boolean trailingWildcard;
+		private final boolean dollar;
+
+		private Shape(boolean caret, boolean leadingWildcard, Set<String> literals, boolean trailingWildcard, boolean dollar) {
+			this.caret = caret;
+			this.leadingWildcard = leadingWildcard;
+			this.literals = Collections.unmodifiableSet(literals);
+			this.trailingWildcard = trailingWildcard;
+			this.dollar = dollar;
+		}
+
+		boolean test(String value, boolean atStart, boolean atEnd) {
+			if (atStart && atEnd) {
+				return literals.contains(value);
+			}
+			for (String literal : literals) {
+				if (atStart ? value.startsWith(literal) : atEnd ? value.endsWith(literal) : value.contains(literal)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		static Shape parse(String regex) {
+			Parser parser = new Parser(regex);
+
+			boolean caret = parser.consume("^");
+			boolean leadingWildcard = parser.consume(".*");
+
+			Set<String> literals = new LinkedHashSet<>();
+			if (parser.consume("(")) {
+				parser.consume("?:");
+				do {
+					String literal = parser.literal();
+					if (literal == null) return null;
+					literals.add(literal);
+				} while (parser.consume("|"));
+				if (!parser.consume(")")) return null;
+			} else {
+				String literal = parser.literal();
+				if (literal == null || literal.isEmpty()) return null;
+				literals.add(literal);
+			}
+
+			boolean trailingWildcard = parser.consume(".*");
+			boolean dollar = parser.consume("$");
+
+			return parser.isDone()
+				? new Shape(caret, leadingWildcard, literals, trailingWildcard, dollar)
+				: null;
+		}
+
+		static final class Parser {
+			private final String regex;
+			private int pos = 0;
+
+			Parser(String regex) {
+				this.regex = regex;
+			}
+
+			boolean isDone() {
+				return pos == regex.length();
+			}
+
+			boolean consume(String token) {
+				if (regex.startsWith(token, pos)) {
+					pos += token.length();
+					return true;
+				}
+				return false;
+			}
+
+			/**
+			 * @return literal up to the next meta character, null if it contains an unsupported escape
+			 */
+			String literal() {
+				StringBuilder sb = new StringBuilder();
+				while (pos < regex.length()) {
+					char c = regex.charAt(pos);
+					if (c == '\\') {
+						if (pos + 1 >= regex.length()) return null;
+						char next = regex.charAt(pos + 1);
+						if (next == 'Q') {
+							int end = regex.indexOf("\\E", pos + 2);
+							if (end == -1) {
+								sb.append(regex, pos + 2, regex.length());
+								pos = regex.length();
+							} else {
+								sb.append(regex, pos + 2, end);
+								pos = end + 2;
+							}
+						} else if (!Character.isLetterOrDigit(next)) {
+							sb.append(next);
+							pos += 2;
+						} else {
+							return null;
+						}
+					} else if (META.indexOf(c) != -1) {
+						return sb.toString();
+					} else {
+						sb.append(c);
+						pos++;
+					}
+				}
+				return sb.toString();
+			}
+		}
+	}
+}
@@ -32,19 +32,8 @@ public class OsReleaseFileConverter implements Function<String, OsReleaseFile> {
   public static final OsReleaseFileConverter INSTANCE=new OsReleaseFileConverter();
 
   public static OsReleaseFile convert(String content) {
-    String[] lines = content.split("[\n\r]+");
     ImmutableOsReleaseFile.Builder builder = ImmutableOsReleaseFile.builder();
-    for (String line : lines) {
-      int idx = line.indexOf("=");
-      if (idx!=-1) {
-        String key = line.substring(0, idx).trim();
-        String value = line.substring(idx + 1).trim();
-        if (value.charAt(0)=='\"' && value.charAt(value.length()-1)=='\"') {
-          value=value.substring(1,value.length()-1);
-        }
-        builder.putAttributes(key, value);
-      }
-    }
+    ReleaseFileParser.parse(content, builder::putAttributes);
     return builder.build();
   }
 }
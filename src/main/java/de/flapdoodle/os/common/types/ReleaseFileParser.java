@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.types;
+
+import java.util.function.BiConsumer;
+
+/**
+ * single pass KEY=VALUE scanner for os-release and lsb-release files,
+ * see https://www.freedesktop.org/software/systemd/man/os-release.html
+ * <ul>
+ *   <li>lines are separated by \n or \r, blank lines and lines starting with # are ignored</li>
+ *   <li>key and value are trimmed, lines without = are ignored</li>
+ *   <li>values may be quoted with " or ', inside double quotes \" \\ \$ and \` are unescaped</li>
+ * </ul>
+ */
+public abstract class ReleaseFileParser {
+
+	private ReleaseFileParser() {
+		// no instance
+	}
+
+	public static void parse(CharSequence content, BiConsumer<String, String> consumer) {
+		int length = content.length();
+		int pos = 0;
+		while (pos < length) {
+			int lineEnd = lineEnd(content, pos, length);
+			parseLine(content, pos, lineEnd, consumer);
+			pos = lineEnd + 1;
+		}
+	}
+
+	private static void parseLine(CharSequence content, int start, int end, BiConsumer<String, String> consumer) {
+		int keyStart = skipWhitespace(content, start, end);
+		if (keyStart == end || content.charAt(keyStart) == '#') {
+			return;
+		}
+		int separator = indexOf(content, '=', keyStart, end);
+		if (separator == -1) {
+			return;
+		}
+		int keyEnd = trimEnd(content, keyStart, separator);
+		if (keyEnd == keyStart) {
+			return;
+		}
+		int valueStart = skipWhitespace(content, separator + 1, end);
+		int valueEnd = trimEnd(content, valueStart, end);
+
+		consumer.accept(content.subSequence(keyStart, keyEnd).toString(), value(content, valueStart, valueEnd));
+	}
+
+	private static String value(CharSequence content, int start, int end) {
+		if (start < end) {
+			char quote = content.charAt(start);
+			if (quote == '"' || quote == '\'') {
+				int closing = closingQuote(content, start + 1, end, quote);
+				if (closing != -1) {
+					return quote == '"'
+						? unescape(content, start + 1, closing)
+						: content.subSequence(start + 1, closing).toString();
+				}
+			}
+		}
+		return content.subSequence(start, end).toString();
+	}
+
+	private static int closingQuote(CharSequence content, int start, int end, char quote) {
+		for (int i = start; i < end; i++) {
+			char c = content.charAt(i);
+			if (c == '\\' && quote == '"') {
+				i++;
+			} else if (c == quote) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String unescape(CharSequence content, int start, int end) {
+		int firstEscape = indexOf(content, '\\', start, end);
+		if (firstEscape == -1) {
+			return content.subSequence(start, end).toString();
+		}
+		StringBuilder sb = new StringBuilder(end - start);
+		sb.append(content, start, firstEscape);
+		for (int i = firstEscape; i < end; i++) {
+			char c = content.charAt(i);
+			if (c == '\\' && i + 1 < end && isEscapable(content.charAt(i + 1))) {
+				c = content.charAt(++i);
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	private static boolean isEscapable(char c) {
+		return c == '"' || c == '\\' || c == '$' || c == '`';
+	}
+
+	private static int lineEnd(CharSequence content, int start, int length) {
+		for (int i = start; i < length; i++) {
+			char c = content.charAt(i);
+			if (c == '\n' || c == '\r') {
+				return i;
+			}
+		}
+		return length;
+	}
+
+	private static int indexOf(CharSequence content, char c, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (content.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int skipWhitespace(CharSequence content, int start, int end) {
+		int i = start;
+		while (i < end && content.charAt(i) <= ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	private static int trimEnd(CharSequence content, int start, int end) {
+		int i = end;
+		while (i > start && content.charAt(i - 1) <= ' ') {
+			i--;
+		}
+		return i;
+	}
+}
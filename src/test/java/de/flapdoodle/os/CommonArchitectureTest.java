@@ -18,8 +18,11 @@ package de.flapdoodle.os;
 
 import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
 import de.flapdoodle.os.common.attributes.SystemProperty;
+import de.flapdoodle.os.common.matcher.ArchitectureTable;
 import de.flapdoodle.os.common.matcher.MatcherLookup;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.Arrays;
@@ -45,6 +48,28 @@ class CommonArchitectureTest {
     assertThat(arch).isEqualTo(CommonArchitecture.ARM_64);
   }
 
+  @ParameterizedTest
+  @CsvSource({
+    "x86_64,X86_64", "AMD64,X86_64", "i686,X86_32", "arm,ARM_32",
+    "ppc64le,PPC_64_LE", "ppc64,PPC_64", "ppc,PPC_32", "s390x,S390_64", "s390,S390_32",
+    "riscv64,RISCV_64", "mips,MIPS_32", "mipsel,MIPS_32_LE", "mips64el,MIPS_64_LE",
+    "sparcv9,SPARC_64", "ia64,ITANIUM_64"
+  })
+  void detectEveryArchitectureFromTheTable(String osArch, CommonArchitecture expected) {
+    Architecture arch = detectArchitecture(osArchIs(osArch), CommonArchitecture.values());
+    assertThat(arch).isEqualTo(expected);
+  }
+
+  @Test
+  void everyTableEntryHasExactlyOneArchitecture() {
+    ArchitectureTable.entries().forEach((osArch, match) -> {
+      assertThat(CommonArchitecture.values())
+        .describedAs(osArch)
+        .filteredOn(it -> it.cpuType() == match.cpuType() && it.bitSize() == match.bitSize() && it.endianness() == match.endianness())
+        .hasSize(1);
+    });
+  }
+
   private static Architecture detectArchitecture(AttributeExtractorLookup attributeExtractorLookup, Architecture ... values) {
 		return match(attributeExtractorLookup, MatcherLookup.systemDefault(), (List<? extends Architecture>) Arrays.<Architecture>asList(values));
 	}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.AttributeColumns;
+import de.flapdoodle.os.common.attributes.AttributeExtractor;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.attributes.MappedTextFile;
+import de.flapdoodle.os.common.attributes.SystemProperty;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import de.flapdoodle.os.common.types.ImmutableOsReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFileConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledCatalogTest {
+
+	private final CompiledCatalog testee = CompiledCatalog.of(OSSample.all());
+
+	@Test
+	void collectAllReferencedAttributes() {
+		assertThat(testee.attributes())
+			.contains(
+				Attributes.systemProperty("os.name"),
+				Attributes.systemProperty("os.arch"),
+				Attributes.systemProperty("os.version"),
+				Attributes.mappedTextFile("/etc/os-release", OsReleaseFileConverter.INSTANCE)
+			);
+	}
+
+	@Test
+	void detectShouldGiveSameResultAsPlatform() {
+		AttributeExtractorLookup lookup = lookup("Linux", "amd64", "4.14.256-197.484.amzn2023.x86_64", "CentOS", "7");
+
+		assertThat(testee.detect(lookup, MatcherLookup.systemDefault()))
+			.isEqualTo(Platform.detect(OSSample.all(), lookup, MatcherLookup.systemDefault()));
+		assertThat(testee.guess(lookup, MatcherLookup.systemDefault()))
+			.isEqualTo(Platform.guess(OSSample.all(), lookup, MatcherLookup.systemDefault()));
+	}
+
+	@Test
+	void detectUbuntu() {
+		AttributeExtractorLookup lookup = lookup("Linux", "x86", null, "Ubuntu", "18.10");
+
+		assertThat(testee.detect(lookup, MatcherLookup.systemDefault()))
+			.isEqualTo(ImmutablePlatform.builder()
+				.operatingSystem(OSSample.Linux)
+				.distribution(OSSample.LinuxDistribution.Ubuntu)
+				.version(OSSample.UbuntuVersion.Ubuntu_18_10)
+				.architecture(CommonArchitecture.X86_32)
+				.build());
+	}
+
+	@Test
+	void eachAttributeIsExtractedOnlyOnce() {
+		Map<Attribute<?>, AtomicInteger> calls = new HashMap<>();
+		AttributeExtractorLookup lookup = lookup("Linux", "amd64", "4.14.256-197.484.amzn2.x86_64", "CentOS", "7");
+		AttributeExtractorLookup counting = new AttributeExtractorLookup() {
+			@Override
+			public <T, A extends Attribute<T>> Optional<AttributeExtractor<T, A>> extractor(A attribute) {
+				return lookup.<T, A>extractor(attribute)
+					.map(extractor -> it -> {
+						calls.computeIfAbsent(it, key -> new AtomicInteger()).incrementAndGet();
+						return extractor.extract(it);
+					});
+			}
+		};
+
+		testee.guess(counting, MatcherLookup.systemDefault());
+
+		assertThat(calls.values()).allMatch(it -> it.get() == 1);
+	}
+
+	@Test
+	void batchDetectionShouldGiveSameResultAsSingleDetection() {
+		List<AttributeExtractorLookup> hosts = Arrays.asList(
+			lookup("Linux", "x86", null, "Ubuntu", "18.10"),
+			lookup("Linux", "amd64", "4.14.256-197.484.amzn2023.x86_64", "CentOS", "7"),
+			lookup("Linux", "aarch64", null, "CentOS", "7"),
+			lookup("Mac OS X", "aarch64", null, "", ""),
+			lookup("Windows", "amd64", null, "", "")
+		);
+
+		List<Optional<Platform>> result = testee.detectAll(AttributeColumns.of(testee.attributes(), hosts), MatcherLookup.systemDefault());
+
+		assertThat(result).hasSize(5);
+		for (int i = 0; i < 4; i++) {
+			assertThat(result.get(i)).contains(Platform.detect(OSSample.all(), hosts.get(i), MatcherLookup.systemDefault()));
+		}
+		assertThat(result.get(4)).isEmpty();
+	}
+
+	private static AttributeExtractorLookup lookup(String osName, String osArch, String osVersion, String name, String versionId) {
+		return AttributeExtractorLookup
+			.with(SystemProperty.any(), it -> {
+				if (it.name().equals("os.name")) {
+					return Optional.of(osName);
+				}
+				if (it.name().equals("os.arch")) {
+					return Optional.of(osArch);
+				}
+				if (it.name().equals("os.version")) {
+					return Optional.ofNullable(osVersion);
+				}
+				return Optional.empty();
+			})
+			.join(AttributeExtractorLookup.<OsReleaseFile, MappedTextFile<OsReleaseFile>>with(MappedTextFile.any(),
+				attribute -> attribute.name().equals("/etc/os-release") ? Optional.of(ImmutableOsReleaseFile.builder()
+					.putAttributes("NAME", name)
+					.putAttributes("VERSION_ID", versionId)
+					.build()) : Optional.empty()))
+			.join(AttributeExtractorLookup.failing());
+	}
+}
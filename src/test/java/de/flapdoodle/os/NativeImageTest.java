@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class NativeImageTest {
+
+	private static final String CONFIG = "META-INF/native-image/de.flapdoodle/de.flapdoodle.os-api/native-image.properties";
+
+	// initialized while building the image, if run with the native profile
+	private static final CompiledCatalog CATALOG = CompiledCatalog.of(OSSample.all());
+
+	@Test
+	void configuredClassesExist() throws IOException {
+		for (String name : option("--initialize-at-build-time")) {
+			assertThat(isClass(name) || isPackage(name)).describedAs(name).isTrue();
+		}
+		for (String name : option("--initialize-at-run-time")) {
+			assertThat(isClass(name)).describedAs(name).isTrue();
+		}
+	}
+
+	@Test
+	void buildTimeClassesDoNotHoldLoggers() throws IOException, URISyntaxException {
+		assumeFalse(inNativeImage());
+
+		List<String> buildTime = option("--initialize-at-build-time");
+		List<String> runTime = option("--initialize-at-run-time");
+
+		Path classes = Paths.get(CompiledCatalog.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		List<String> classNames;
+		try (Stream<Path> files = Files.walk(classes)) {
+			classNames = files
+				.map(it -> classes.relativize(it).toString())
+				.filter(it -> it.endsWith(".class"))
+				.map(it -> it.substring(0, it.length() - ".class".length()).replace('/', '.').replace('\\', '.'))
+				.collect(Collectors.toList());
+		}
+
+		List<String> checked = new ArrayList<>();
+		for (String className : classNames) {
+			String packageName = className.substring(0, className.lastIndexOf('.'));
+			boolean initializedAtBuildTime = (buildTime.contains(className) || buildTime.contains(packageName))
+				&& !runTime.contains(className);
+			if (initializedAtBuildTime) {
+				checked.add(className);
+				assertThat(staticFieldsOf(className))
+					.describedAs(className)
+					.noneMatch(it -> Logger.class.isAssignableFrom(it.getType()));
+			}
+		}
+
+		assertThat(checked).contains(CommonArchitecture.class.getName(), CompiledCatalog.class.getName());
+	}
+
+	@Test
+	void detectionFromBuildTimeCatalogIsFast() {
+		assumeTrue(inNativeImage());
+
+		long start = System.nanoTime();
+		Platform platform = CATALOG.detect();
+		long duration = System.nanoTime() - start;
+
+		assertThat(platform).isNotNull();
+		assertThat(duration).isLessThan(TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+	private static boolean inNativeImage() {
+		return System.getProperty("org.graalvm.nativeimage.imagecode") != null;
+	}
+
+	private static List<String> option(String name) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = NativeImageTest.class.getClassLoader().getResourceAsStream(CONFIG)) {
+			assertThat(in).describedAs(CONFIG).isNotNull();
+			properties.load(in);
+		}
+		return Arrays.stream(properties.getProperty("Args").trim().split("\\s+"))
+			.filter(it -> it.startsWith(name + "="))
+			.flatMap(it -> Arrays.stream(it.substring(name.length() + 1).split(",")))
+			.collect(Collectors.toList());
+	}
+
+	private static boolean isClass(String name) {
+		try {
+			Class.forName(name, false, NativeImageTest.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static boolean isPackage(String name) {
+		return NativeImageTest.class.getClassLoader().getResource(name.replace('.', '/')) != null;
+	}
+
+	private static List<Field> staticFieldsOf(String className) {
+		try {
+			return Arrays.stream(Class.forName(className, false, NativeImageTest.class.getClassLoader()).getDeclaredFields())
+				.filter(it -> Modifier.isStatic(it.getModifiers()))
+				.collect(Collectors.toList());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import de.flapdoodle.os.common.DistinctPeculiarity;
+import de.flapdoodle.os.common.Peculiarity;
+import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.matcher.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistentPlatformCacheTest {
+
+	private static final Platform UBUNTU = ImmutablePlatform.builder()
+		.operatingSystem(OSSample.Linux)
+		.architecture(CommonArchitecture.X86_64)
+		.distribution(OSSample.LinuxDistribution.Ubuntu)
+		.version(OSSample.UbuntuVersion.Ubuntu_18_10)
+		.build();
+
+	@Test
+	void secondDetectionShouldBeReadFromCacheFile(@TempDir Path tempDir) throws IOException {
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<Platform> detection = () -> {
+			calls.incrementAndGet();
+			return UBUNTU;
+		};
+
+		assertThat(PersistentPlatformCache.detect(OSSample.all(), tempDir, detection)).isEqualTo(UBUNTU);
+		assertThat(PersistentPlatformCache.detect(OSSample.all(), tempDir, detection)).isEqualTo(UBUNTU);
+		assertThat(calls.get()).isEqualTo(1);
+
+		assertThat(files(tempDir))
+			.containsExactly("platform-" + PersistentPlatformCache.fingerprint(OSSample.all()) + ".properties");
+	}
+
+	@Test
+	void changedStateShouldInvalidateCacheFile(@TempDir Path tempDir) throws IOException {
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<Platform> detection = () -> {
+			calls.incrementAndGet();
+			return UBUNTU;
+		};
+
+		PersistentPlatformCache.detect(OSSample.all(), tempDir, detection);
+
+		Path cacheFile = tempDir.resolve(files(tempDir).get(0));
+		Properties entry = new Properties();
+		try (InputStream in = Files.newInputStream(cacheFile)) {
+			entry.load(in);
+		}
+		entry.setProperty("state.bootId", "other boot");
+		try (OutputStream out = Files.newOutputStream(cacheFile)) {
+			entry.store(out, null);
+		}
+
+		assertThat(PersistentPlatformCache.detect(OSSample.all(), tempDir, detection)).isEqualTo(UBUNTU);
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	void cacheIsNeitherReadNorWrittenWithOverride(@TempDir Path tempDir) throws IOException {
+		PersistentPlatformCache.detect(OSSample.all(), tempDir, () -> UBUNTU);
+		List<String> files = files(tempDir);
+
+		Platform overridden = ImmutablePlatform.builder()
+			.operatingSystem(OSSample.OS_X)
+			.architecture(CommonArchitecture.X86_64)
+			.build();
+
+		System.setProperty("de.flapdoodle.os.override", "OS_X|X86_64");
+		try {
+			assertThat(PersistentPlatformCache.detect(OSSample.all(), tempDir, () -> overridden)).isEqualTo(overridden);
+		} finally {
+			System.clearProperty("de.flapdoodle.os.override");
+		}
+		assertThat(files(tempDir)).isEqualTo(files);
+
+		AtomicInteger calls = new AtomicInteger();
+		assertThat(PersistentPlatformCache.detect(OSSample.all(), tempDir, () -> {
+			calls.incrementAndGet();
+			return overridden;
+		})).isEqualTo(UBUNTU);
+		assertThat(calls.get()).isZero();
+	}
+
+	@Test
+	void fingerprintDependsOnCatalog() {
+		assertThat(PersistentPlatformCache.fingerprint(OSSample.all()))
+			.isEqualTo(PersistentPlatformCache.fingerprint(OSSample.all()))
+			.isNotEqualTo(PersistentPlatformCache.fingerprint(Collections.singletonList(OSSample.Linux)));
+	}
+
+	@Test
+	void fingerprintDoesNotDependOnConverterInstances() {
+		assertThat(PersistentPlatformCache.fingerprint(Collections.singletonList(catalogWithConverter(it -> it))))
+			.isEqualTo(PersistentPlatformCache.fingerprint(Collections.singletonList(catalogWithConverter(it -> it))));
+	}
+
+	@Test
+	void fingerprintIsComputedOncePerCatalog() {
+		assertThat(CompiledCatalog.cached(OSSample.all()).fingerprint())
+			.isSameAs(CompiledCatalog.cached(OSSample.all()).fingerprint())
+			.isEqualTo(PersistentPlatformCache.fingerprint(OSSample.all()));
+	}
+
+	@Test
+	void staleCacheFilesShouldBePruned(@TempDir Path tempDir) throws IOException {
+		Path otherBoot = tempDir.resolve("platform-otherboot.properties");
+		Properties entry = new Properties();
+		entry.setProperty("state.bootId", "other boot");
+		try (OutputStream out = Files.newOutputStream(otherBoot)) {
+			entry.store(out, null);
+		}
+		Path outdated = Files.createFile(tempDir.resolve("platform-outdated.properties.tmp"));
+		Files.setLastModifiedTime(outdated, FileTime.fromMillis(System.currentTimeMillis() - PersistentPlatformCache.MAX_AGE.toMillis() - 1000));
+		Path recentTemp = Files.createFile(tempDir.resolve("platform-recent.properties.tmp"));
+		Path unrelated = Files.createFile(tempDir.resolve("other.properties"));
+
+		PersistentPlatformCache.detect(OSSample.all(), tempDir, () -> UBUNTU);
+
+		assertThat(files(tempDir)).containsExactlyInAnyOrder(
+			"platform-" + PersistentPlatformCache.fingerprint(OSSample.all()) + ".properties",
+			recentTemp.getFileName().toString(),
+			unrelated.getFileName().toString());
+	}
+
+	@Test
+	void stateContainsEveryCatalogFileAndProperty() {
+		Properties state = PersistentPlatformCache.state(PersistentPlatformCache.systemProperties(OSSample.all()),
+			PlatformWatcher.watchedFiles(OSSample.all()));
+
+		assertThat(state.stringPropertyNames())
+			.contains("state.bootId", "state.property.os.name", "state.property.os.arch", "state.file./etc/os-release");
+	}
+
+	@Test
+	void systemPropertiesAreTakenFromTheCatalog(@TempDir Path tempDir) {
+		List<OS> catalog = Collections.singletonList(catalog(
+			DistinctPeculiarity.of(Attributes.systemProperty("de.flapdoodle.os.test.flavor"), Matchers.matchPattern("custom"))));
+
+		assertThat(PersistentPlatformCache.systemProperties(catalog))
+			.contains("de.flapdoodle.os.test.flavor", "os.arch");
+
+		AtomicInteger detections = new AtomicInteger();
+		Supplier<Platform> detection = () -> {
+			detections.incrementAndGet();
+			return ImmutablePlatform.builder()
+				.operatingSystem(catalog.get(0))
+				.architecture(CommonArchitecture.X86_64)
+				.build();
+		};
+
+		System.setProperty("de.flapdoodle.os.test.flavor", "custom");
+		try {
+			PersistentPlatformCache.detect(catalog, tempDir, detection);
+			PersistentPlatformCache.detect(catalog, tempDir, detection);
+			assertThat(detections).hasValue(1);
+
+			System.setProperty("de.flapdoodle.os.test.flavor", "other");
+			PersistentPlatformCache.detect(catalog, tempDir, detection);
+			assertThat(detections).hasValue(2);
+		}
+		finally {
+			System.clearProperty("de.flapdoodle.os.test.flavor");
+		}
+	}
+
+	private static OS catalogWithConverter(Function<String, String> converter) {
+		return catalog(DistinctPeculiarity.of(Attributes.mappedTextFile("/etc/custom", converter), Matchers.matchPattern("custom")));
+	}
+
+	private static OS catalog(DistinctPeculiarity<?> peculiarity) {
+		return new OS() {
+			@Override
+			public String name() {
+				return "Custom";
+			}
+
+			@Override
+			public OSType type() {
+				return OSType.Linux;
+			}
+
+			@Override
+			public List<Peculiarity> pecularities() {
+				return Collections.singletonList(peculiarity);
+			}
+
+			@Override
+			public List<? extends Architecture> architectures() {
+				return Arrays.asList(CommonArchitecture.values());
+			}
+
+			@Override
+			public List<? extends Distribution> distributions() {
+				return Collections.emptyList();
+			}
+		};
+	}
+
+	private static List<String> files(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(it -> it.getFileName().toString()).collect(Collectors.toList());
+		}
+	}
+}
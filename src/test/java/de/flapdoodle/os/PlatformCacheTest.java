@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PlatformCacheTest {
+
+	private static final Platform LINUX = ImmutablePlatform.builder()
+		.operatingSystem(OSSample.Linux)
+		.architecture(CommonArchitecture.X86_64)
+		.build();
+
+	@AfterEach
+	void invalidate() {
+		PlatformCache.invalidate();
+	}
+
+	@Test
+	void detectOnlyOnceUntilInvalidated() {
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<Platform> detection = () -> {
+			calls.incrementAndGet();
+			return LINUX;
+		};
+
+		assertThat(PlatformCache.detect(OSSample.all(), detection)).isEqualTo(LINUX);
+		assertThat(PlatformCache.detect(OSSample.all(), detection)).isEqualTo(LINUX);
+		assertThat(calls.get()).isEqualTo(1);
+
+		PlatformCache.invalidate(OSSample.all());
+
+		assertThat(PlatformCache.detect(OSSample.all(), detection)).isEqualTo(LINUX);
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	void cacheIsNeitherReadNorWrittenWithOverride() {
+		assertThat(PlatformCache.detect(OSSample.all(), () -> LINUX)).isEqualTo(LINUX);
+
+		Platform overridden = ImmutablePlatform.builder()
+			.operatingSystem(OSSample.OS_X)
+			.architecture(CommonArchitecture.X86_64)
+			.build();
+
+		System.setProperty("de.flapdoodle.os.override", "OS_X|X86_64");
+		try {
+			assertThat(PlatformCache.detect(OSSample.all(), () -> overridden)).isEqualTo(overridden);
+			assertThat(PlatformCache.detect(OSSample.all())).isEqualTo(overridden);
+		} finally {
+			System.clearProperty("de.flapdoodle.os.override");
+		}
+
+		AtomicInteger calls = new AtomicInteger();
+		assertThat(PlatformCache.detect(OSSample.all(), () -> {
+			calls.incrementAndGet();
+			return overridden;
+		})).isEqualTo(LINUX);
+		assertThat(calls.get()).isZero();
+	}
+
+	@Test
+	void failedDetectionIsNotCached() {
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<Platform> failing = () -> {
+			calls.incrementAndGet();
+			throw new IllegalArgumentException("no match");
+		};
+
+		assertThatThrownBy(() -> PlatformCache.detect(OSSample.all(), failing))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PlatformCache.detect(OSSample.all(), failing))
+			.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	void detectionErrorDoesNotBlockLaterCallers() {
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<Platform> broken = () -> {
+			if (calls.incrementAndGet() == 1) {
+				throw new ExceptionInInitializerError("catalog init failed");
+			}
+			return LINUX;
+		};
+
+		assertThatThrownBy(() -> PlatformCache.detect(OSSample.all(), broken))
+			.isInstanceOf(ExceptionInInitializerError.class);
+		assertThat(PlatformCache.detect(OSSample.all(), broken)).isEqualTo(LINUX);
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentCallersShareOneDetection() throws Exception {
+		int threads = 16;
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Supplier<Platform> slowDetection = () -> {
+			calls.incrementAndGet();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return LINUX;
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Platform>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return PlatformCache.detect(OSSample.all(), slowDetection);
+				}));
+			}
+			start.countDown();
+			Thread.sleep(100);
+			release.countDown();
+
+			for (Future<Platform> result : results) {
+				assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(LINUX);
+			}
+			assertThat(calls.get()).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void readsStayConsistentWhileInvalidating() throws Exception {
+		int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+		int readsPerThread = 100_000;
+		AtomicInteger calls = new AtomicInteger();
+		AtomicInteger invalidations = new AtomicInteger();
+		AtomicBoolean reading = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+
+		Supplier<Platform> detection = () -> {
+			calls.incrementAndGet();
+			return LINUX;
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		try {
+			List<Future<Integer>> readers = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				readers.add(executor.submit(() -> {
+					start.await();
+					int hits = 0;
+					for (int r = 0; r < readsPerThread; r++) {
+						if (PlatformCache.detect(OSSample.all(), detection) == LINUX) {
+							hits++;
+						}
+					}
+					return hits;
+				}));
+			}
+			Future<?> invalidator = executor.submit(() -> {
+				start.await();
+				while (reading.get()) {
+					PlatformCache.invalidate(OSSample.all());
+					invalidations.incrementAndGet();
+					Thread.sleep(1);
+				}
+				return null;
+			});
+
+			start.countDown();
+			for (Future<Integer> reader : readers) {
+				assertThat(reader.get(60, TimeUnit.SECONDS)).isEqualTo(readsPerThread);
+			}
+			reading.set(false);
+			invalidator.get(10, TimeUnit.SECONDS);
+
+			// at most one detection per invalidation (plus the first), never one per read
+			assertThat(calls.get()).isBetween(1, invalidations.get() + 1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PlatformDaemonTest {
+
+	private static final Platform UBUNTU = ImmutablePlatform.builder()
+		.operatingSystem(OSSample.Linux)
+		.architecture(CommonArchitecture.X86_64)
+		.distribution(OSSample.LinuxDistribution.Ubuntu)
+		.version(OSSample.UbuntuVersion.Ubuntu_18_10)
+		.build();
+
+	// generous, the first query of a jvm loads classes
+	private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+	@BeforeEach
+	void unixDomainSocketsAreSupported() {
+		assumeTrue(PlatformDaemon.isSupported());
+	}
+
+	@Test
+	void clientShouldGetPlatformFromDaemon(@TempDir Path tempDir) throws IOException {
+		Path socket = tempDir.resolve("os.sock");
+		try (PlatformDaemon ignore = PlatformDaemon.start(socket, PersistentPlatformCache.fingerprint(OSSample.all()), () -> UBUNTU)) {
+			assertThat(PlatformDaemonClient.query(OSSample.all(), socket, TIMEOUT)).contains(UBUNTU);
+			assertThat(PlatformDaemonClient.query(OSSample.all(), socket, TIMEOUT)).contains(UBUNTU);
+		}
+		assertThat(socket).doesNotExist();
+	}
+
+	@Test
+	void daemonShouldNotAnswerForOtherCatalog(@TempDir Path tempDir) throws IOException {
+		Path socket = tempDir.resolve("os.sock");
+		try (PlatformDaemon ignore = PlatformDaemon.start(socket, PersistentPlatformCache.fingerprint(OSSample.all()), () -> UBUNTU)) {
+			assertThat(PlatformDaemonClient.query(Collections.singletonList(OSSample.Linux), socket, TIMEOUT)).isEmpty();
+		}
+	}
+
+	@Test
+	void failedDetectionGivesNoAnswer(@TempDir Path tempDir) throws IOException {
+		Path socket = tempDir.resolve("os.sock");
+		try (PlatformDaemon ignore = PlatformDaemon.start(socket, PersistentPlatformCache.fingerprint(OSSample.all()), () -> {
+			throw new IllegalArgumentException("no match");
+		})) {
+			assertThat(PlatformDaemonClient.query(OSSample.all(), socket, TIMEOUT)).isEmpty();
+		}
+	}
+
+	@Test
+	void idleClientShouldNotBlockOtherClientsAndIsDisconnected(@TempDir Path tempDir) throws IOException {
+		Path socket = tempDir.resolve("os.sock");
+		try (PlatformDaemon ignore = PlatformDaemon.start(socket, PersistentPlatformCache.fingerprint(OSSample.all()), () -> UBUNTU);
+			SocketChannel idle = UnixSockets.connect(socket)) {
+
+			assertThat(PlatformDaemonClient.query(OSSample.all(), socket, TIMEOUT)).contains(UBUNTU);
+
+			int read = assertTimeoutPreemptively(Duration.ofMillis(PlatformDaemon.CONNECTION_TIMEOUT_MILLIS * 10),
+				() -> idle.read(ByteBuffer.allocate(1)));
+			assertThat(read).isEqualTo(-1);
+		}
+	}
+
+	@Test
+	void socketCanBeSetWithSystemProperty() {
+		String old = System.getProperty("de.flapdoodle.os.daemon.socket");
+		System.setProperty("de.flapdoodle.os.daemon.socket", "/run/user/1000/custom.sock");
+		try {
+			assertThat(PlatformDaemon.defaultSocket()).contains(Paths.get("/run/user/1000/custom.sock"));
+		} finally {
+			if (old != null) {
+				System.setProperty("de.flapdoodle.os.daemon.socket", old);
+			} else {
+				System.clearProperty("de.flapdoodle.os.daemon.socket");
+			}
+		}
+	}
+
+	@Test
+	void watcherOfTheDaemonDetectsInProcessEvenIfDaemonIsEnabled(@TempDir Path tempDir) throws IOException {
+		Path socket = tempDir.resolve("os.sock");
+		AtomicInteger queries = new AtomicInteger();
+		System.setProperty("de.flapdoodle.os.daemon", "true");
+		System.setProperty("de.flapdoodle.os.daemon.socket", socket.toString());
+		System.setProperty("de.flapdoodle.os.daemon.timeoutMicros", String.valueOf(TimeUnit.NANOSECONDS.toMicros(TIMEOUT)));
+		try (PlatformDaemon ignore = PlatformDaemon.start(socket, PersistentPlatformCache.fingerprint(OSSample.all()), () -> {
+			queries.incrementAndGet();
+			return UBUNTU;
+		})) {
+			try (PlatformWatcher watcher = PlatformWatcher.start(OSSample.all())) {
+				assertThat(watcher.platform()).isEqualTo(Platform.detectInProcess(OSSample.all()));
+			}
+			assertThat(queries.get()).isZero();
+
+			assertThat(Platform.detect(OSSample.all())).isEqualTo(UBUNTU);
+			assertThat(queries.get()).isEqualTo(1);
+		} finally {
+			System.clearProperty("de.flapdoodle.os.daemon");
+			System.clearProperty("de.flapdoodle.os.daemon.socket");
+			System.clearProperty("de.flapdoodle.os.daemon.timeoutMicros");
+			PlatformCache.invalidate();
+		}
+	}
+
+	@Test
+	void waitsBelowOneMillisecondAreNotRoundedUp() throws IOException {
+		try (Selector selector = Selector.open()) {
+			long fastest = Long.MAX_VALUE;
+			for (int i = 0; i < 20; i++) {
+				long start = System.nanoTime();
+				PlatformDaemonClient.await(selector, TimeUnit.MICROSECONDS.toNanos(200));
+				fastest = Math.min(fastest, System.nanoTime() - start);
+			}
+			assertThat(fastest).isLessThan(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
+	@Test
+	void withoutDaemonThereIsNoAnswer(@TempDir Path tempDir) {
+		assertThat(PlatformDaemonClient.query(OSSample.all(), tempDir.resolve("os.sock"), TIMEOUT)).isEmpty();
+	}
+
+	@Test
+	void onlyOneDaemonPerSocket(@TempDir Path tempDir) throws IOException {
+		Path socket = tempDir.resolve("os.sock");
+		try (PlatformDaemon ignore = PlatformDaemon.start(socket, "fingerprint", () -> UBUNTU)) {
+			assertThatThrownBy(() -> PlatformDaemon.start(socket, "fingerprint", () -> UBUNTU))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("already running");
+		}
+	}
+}
@@ -16,17 +16,36 @@
  */
 package de.flapdoodle.os;
 
+import de.flapdoodle.os.common.AllOf;
+import de.flapdoodle.os.common.DistinctPeculiarity;
+import de.flapdoodle.os.common.OneOf;
+import de.flapdoodle.os.common.Peculiarity;
+import de.flapdoodle.os.common.PeculiarityScore;
 import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.attributes.Attributes;
 import de.flapdoodle.os.common.attributes.MappedTextFile;
 import de.flapdoodle.os.common.attributes.SystemProperty;
+import de.flapdoodle.os.common.attributes.TextFile;
+import de.flapdoodle.os.common.listener.DetectionTrace;
 import de.flapdoodle.os.common.matcher.MatcherLookup;
+import de.flapdoodle.os.common.matcher.Matchers;
+import de.flapdoodle.os.common.matcher.OsReleaseFileEntryMatcher;
+import de.flapdoodle.os.common.matcher.OsReleaseFileMapEntry;
 import de.flapdoodle.os.common.types.ImmutableOsReleaseFile;
 import de.flapdoodle.os.common.types.OsReleaseFile;
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -124,6 +143,95 @@ class PlatformTest {
 			);
 	}
 
+	@Test
+	void rankShouldOrderByScoreAndPriorityAndSkipCandidatesOutsideTopK() {
+		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup
+			.with(SystemProperty.any(), it -> {
+				if (it.name().equals("os.name")) {
+					return Optional.of("Linux");
+				}
+				if (it.name().equals("os.arch")) {
+					return Optional.of("amd64");
+				}
+				if (it.name().equals("os.version")) {
+					return Optional.of("4.14.256-197.484.amzn2023.x86_64");
+				}
+				return Optional.empty();
+			})
+			.join(AttributeExtractorLookup.<OsReleaseFile, MappedTextFile<OsReleaseFile>>with(MappedTextFile.any(),
+				attribute -> attribute.name().equals("/etc/os-release") ? Optional.of(ImmutableOsReleaseFile.builder()
+					.putAttributes("NAME", "CentOS")
+					.putAttributes("VERSION_ID", "7")
+					.build()) : Optional.empty()))
+			.join(AttributeExtractorLookup.failing());
+
+		AtomicInteger versionIdChecks = new AtomicInteger();
+		MatcherLookup matcherLookup = MatcherLookup.forType(OsReleaseFileMapEntry.class, (Optional<OsReleaseFile> value, OsReleaseFileMapEntry match) -> {
+				if (match.key().equals("VERSION_ID")) {
+					versionIdChecks.incrementAndGet();
+				}
+				return new OsReleaseFileEntryMatcher().match(value, match);
+			})
+			.join(MatcherLookup.systemDefault());
+
+		List<RankedPlatform> ranked = Platform.rank(OSSample.all(), attributeExtractorLookup, matcherLookup, 3);
+
+		assertThat(ranked)
+			.extracting(RankedPlatform::platform)
+			.containsExactly(
+				ImmutablePlatform.builder()
+					.operatingSystem(OSSample.Linux)
+					.architecture(CommonArchitecture.X86_64)
+					.distribution(OSSample.LinuxDistribution.Amazon)
+					.version(OSSample.AmazonVersion.AmazonLinux2023)
+					.build(),
+				ImmutablePlatform.builder()
+					.operatingSystem(OSSample.Linux)
+					.architecture(CommonArchitecture.X86_64)
+					.distribution(OSSample.LinuxDistribution.CentOS)
+					.version(OSSample.CentosVersion.CentOS_7)
+					.build(),
+				ImmutablePlatform.builder()
+					.operatingSystem(OSSample.Linux)
+					.architecture(CommonArchitecture.X86_64)
+					.distribution(OSSample.LinuxDistribution.Amazon)
+					.version(OSSample.AmazonVersion.AmazonLinux2)
+					.build()
+			);
+		assertThat(ranked).extracting(RankedPlatform::score)
+			.containsOnly(RankedPlatform.MAX_SCORE);
+		assertThat(versionIdChecks.get()).isGreaterThan(0);
+
+		versionIdChecks.set(0);
+		List<RankedPlatform> best = Platform.rank(OSSample.all(), attributeExtractorLookup, matcherLookup, 1);
+
+		assertThat(best)
+			.extracting(RankedPlatform::platform)
+			.containsExactly(ImmutablePlatform.builder()
+				.operatingSystem(OSSample.Linux)
+				.architecture(CommonArchitecture.X86_64)
+				.distribution(OSSample.LinuxDistribution.Amazon)
+				.version(OSSample.AmazonVersion.AmazonLinux2023)
+				.build());
+		assertThat(versionIdChecks.get()).isZero();
+	}
+
+	@Test
+	void scoreShouldGivePartialCreditForAllOf() {
+		Peculiarity linux = DistinctPeculiarity.of(Attributes.systemProperty("os.name"), Matchers.matchPattern("Linux"));
+		Peculiarity arm = DistinctPeculiarity.of(Attributes.systemProperty("os.arch"), Matchers.matchPattern("arm.*"));
+
+		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup
+			.with(SystemProperty.any(), it -> it.name().equals("os.name") ? Optional.of("Linux") : Optional.of("x86"));
+
+		assertThat(PeculiarityScore.of(attributeExtractorLookup, MatcherLookup.systemDefault(), AllOf.of(linux, arm)))
+			.isEqualTo(0.5);
+		assertThat(PeculiarityScore.of(attributeExtractorLookup, MatcherLookup.systemDefault(), OneOf.of(arm, AllOf.of(linux, arm))))
+			.isEqualTo(0.5);
+		assertThat(PeculiarityScore.of(attributeExtractorLookup, MatcherLookup.systemDefault(), OneOf.of(arm, linux)))
+			.isEqualTo(1.0);
+	}
+
 	@Test
 	void guessDoesNotFailIfMoreThanOneMatchPossible() {
 		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup
@@ -168,6 +276,84 @@ class PlatformTest {
 				);
 	}
 
+	@Test
+	void asyncDetectionShouldPrefetchAttributesWithGivenExecutor() throws Exception {
+		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup
+			.with(SystemProperty.any(), it -> {
+				if (it.name().equals("os.name")) {
+					return Optional.of("Linux");
+				}
+				if (it.name().equals("os.arch")) {
+					return Optional.of("x86");
+				}
+				return Optional.empty();
+			})
+			.join(AttributeExtractorLookup.<OsReleaseFile, MappedTextFile<OsReleaseFile>>with(MappedTextFile.any(),
+				attribute -> attribute.name().equals("/etc/os-release") ? Optional.of(ImmutableOsReleaseFile.builder()
+					.putAttributes("NAME", "Ubuntu")
+					.putAttributes("VERSION_ID", "18.10")
+					.build()) : Optional.empty()))
+			.join(AttributeExtractorLookup.failing());
+
+		MatcherLookup matcherLookup = MatcherLookup.systemDefault();
+		AtomicInteger tasks = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Executor counting = task -> {
+			tasks.incrementAndGet();
+			executor.execute(task);
+		};
+
+		try {
+			Platform result = Platform.async(OSSample.all(), attributeExtractorLookup, matcherLookup, counting,
+					(lookup, matcher) -> Platform.detect(OSSample.all(), lookup, matcher))
+				.get(10, TimeUnit.SECONDS);
+
+			assertThat(result).isEqualTo(Platform.detect(OSSample.all(), attributeExtractorLookup, matcherLookup));
+			assertThat(tasks.get()).isGreaterThan(1);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void asyncDetectionShouldOnlyPrefetchDistributionsOfMatchingOs() throws Exception {
+		List<String> extracted = new CopyOnWriteArrayList<>();
+		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup
+			.with(SystemProperty.any(), it -> {
+				extracted.add(it.name());
+				if (it.name().equals("os.name")) {
+					return Optional.of("Mac OS X");
+				}
+				if (it.name().equals("os.arch")) {
+					return Optional.of("aarch64");
+				}
+				return Optional.empty();
+			})
+			.join(AttributeExtractorLookup.with(MappedTextFile.any(), it -> {
+				extracted.add(it.name());
+				return Optional.empty();
+			}))
+			.join(AttributeExtractorLookup.with(TextFile.any(), it -> {
+				extracted.add(it.name());
+				return Optional.empty();
+			}))
+			.join(AttributeExtractorLookup.failing());
+
+		Platform result = Platform.async(OSSample.all(), attributeExtractorLookup, MatcherLookup.systemDefault(), Runnable::run,
+				(lookup, matcher) -> Platform.detect(OSSample.all(), lookup, matcher))
+			.get(10, TimeUnit.SECONDS);
+
+		assertThat(result.operatingSystem()).isEqualTo(OSSample.OS_X);
+		assertThat(extracted).containsExactlyInAnyOrder("os.name", "os.arch");
+		assertThat(CompiledCatalog.cached(OSSample.all())).isSameAs(CompiledCatalog.cached(OSSample.all()));
+	}
+
+	@Test
+	void systemDefaultsAsync() throws Exception {
+		assertThat(Platform.detectAsync(OSSample.all()).get(10, TimeUnit.SECONDS))
+			.isEqualTo(Platform.detect(OSSample.all()));
+	}
+
 	@Test
 	void systemDefaults() {
 		Platform result = Platform.detect(OSSample.all());
@@ -178,6 +364,39 @@ class PlatformTest {
 		result.version().ifPresent(version -> System.out.println("Version: " + version));
 	}
 
+	@Test
+	void failingDetectionShouldCarryTraceWithoutExplain() {
+		Assumptions.assumeFalse(System.getProperty("os.name").startsWith("Mac"));
+		Assumptions.assumeFalse(Platform.isOverridden());
+
+		Assertions.assertThatThrownBy(() -> Platform.detect(Collections.singletonList(OSSample.OS_X)))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("no match out of")
+			.satisfies(ix -> assertThat(ix.getSuppressed())
+				.singleElement()
+				.isInstanceOf(DetectionTrace.class)
+				.satisfies(trace -> assertThat(trace.getMessage())
+					.startsWith("Platform.detect() trace:")
+					.contains("match ")
+					.contains("Mac OS X")));
+	}
+
+	@Test
+	void failingDetectionShouldNotCarryTraceIfDisabled() {
+		Assumptions.assumeFalse(System.getProperty("os.name").startsWith("Mac"));
+		Assumptions.assumeFalse(Platform.isOverridden());
+
+		System.setProperty("de.flapdoodle.os.trace", "false");
+		try {
+			Assertions.assertThatThrownBy(() -> Platform.detect(Collections.singletonList(OSSample.OS_X)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.satisfies(ix -> assertThat(ix.getSuppressed()).isEmpty());
+		}
+		finally {
+			System.clearProperty("de.flapdoodle.os.trace");
+		}
+	}
+
 	@Test
 	void parseOverrideWithOnlyOsAndArchitecture() {
 		String override = OSSample.OS_X.name() + "|" + CommonArchitecture.X86_64;
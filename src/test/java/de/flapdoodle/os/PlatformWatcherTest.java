@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlatformWatcherTest {
+
+	private static final Platform LINUX = ImmutablePlatform.builder()
+		.operatingSystem(OSSample.Linux)
+		.architecture(CommonArchitecture.X86_64)
+		.build();
+
+	private static final Platform UBUNTU = ImmutablePlatform.builder()
+		.from(LINUX)
+		.distribution(OSSample.LinuxDistribution.Ubuntu)
+		.version(OSSample.UbuntuVersion.Ubuntu_18_10)
+		.build();
+
+	@Test
+	void watchedFilesAreTheFilesOfTheCatalog() {
+		assertThat(PlatformWatcher.watchedFiles(OSSample.all()))
+			.contains(Paths.get("/etc/os-release"), Paths.get("/etc/centos-release"));
+	}
+
+	@Test
+	void changedFileShouldTriggerDetection(@TempDir Path tempDir) throws Exception {
+		Path releaseFile = tempDir.resolve("os-release");
+		write(releaseFile, "NAME=Linux");
+
+		AtomicInteger detections = new AtomicInteger();
+		Supplier<Platform> detection = () -> {
+			detections.incrementAndGet();
+			return read(releaseFile).contains("Ubuntu") ? UBUNTU : LINUX;
+		};
+
+		BlockingQueue<Platform> published = new LinkedBlockingQueue<>();
+		try (PlatformWatcher watcher = PlatformWatcher.start(Collections.singletonList(releaseFile), detection)) {
+			watcher.subscribe(published::add);
+			assertThat(watcher.platform()).isEqualTo(LINUX);
+
+			write(tempDir.resolve("unrelated"), "foo");
+			assertThat(published.poll(500, TimeUnit.MILLISECONDS)).isNull();
+			assertThat(detections.get()).isEqualTo(1);
+
+			write(releaseFile, "NAME=Ubuntu");
+
+			assertThat(published.poll(20, TimeUnit.SECONDS)).isEqualTo(UBUNTU);
+			assertThat(watcher.platform()).isEqualTo(UBUNTU);
+		}
+	}
+
+	@Test
+	void fileInMissingDirectoryShouldBeWatchedOnceTheDirectoryIsCreated(@TempDir Path tempDir) throws Exception {
+		Path releaseFile = tempDir.resolve("etc").resolve("release").resolve("os-release");
+		Supplier<Platform> detection = () -> Files.exists(releaseFile) && read(releaseFile).contains("Ubuntu") ? UBUNTU : LINUX;
+
+		BlockingQueue<Platform> published = new LinkedBlockingQueue<>();
+		try (PlatformWatcher watcher = PlatformWatcher.start(Collections.singletonList(releaseFile), detection)) {
+			watcher.subscribe(published::add);
+			assertThat(watcher.platform()).isEqualTo(LINUX);
+
+			Files.createDirectories(releaseFile.getParent());
+			write(releaseFile, "NAME=Ubuntu");
+
+			assertThat(published.poll(20, TimeUnit.SECONDS)).isEqualTo(UBUNTU);
+		}
+	}
+
+	@Test
+	void deletedAndRecreatedDirectoryShouldBeWatchedAgain(@TempDir Path tempDir) throws Exception {
+		Path directory = tempDir.resolve("etc");
+		Path releaseFile = directory.resolve("os-release");
+		Files.createDirectories(directory);
+		write(releaseFile, "NAME=Linux");
+		Supplier<Platform> detection = () -> Files.exists(releaseFile) && read(releaseFile).contains("Ubuntu") ? UBUNTU : LINUX;
+
+		BlockingQueue<Platform> published = new LinkedBlockingQueue<>();
+		try (PlatformWatcher watcher = PlatformWatcher.start(Collections.singletonList(releaseFile), detection)) {
+			watcher.subscribe(published::add);
+			assertThat(watcher.platform()).isEqualTo(LINUX);
+
+			Files.delete(releaseFile);
+			Files.delete(directory);
+			// the key of the deleted directory must be gone before it is created again
+			Thread.sleep(PlatformWatcher.SETTLE_MILLIS * 4);
+
+			Files.createDirectories(directory);
+			write(releaseFile, "NAME=Ubuntu");
+
+			assertThat(published.poll(20, TimeUnit.SECONDS)).isEqualTo(UBUNTU);
+		}
+	}
+
+	@Test
+	void failingDetectionShouldNotStopTheWatcher(@TempDir Path tempDir) throws Exception {
+		Path releaseFile = tempDir.resolve("os-release");
+		write(releaseFile, "NAME=Linux");
+
+		Supplier<Platform> detection = () -> {
+			String content = read(releaseFile);
+			if (content.contains("Broken")) {
+				throw new AssertionError("detection failed");
+			}
+			return content.contains("Ubuntu") ? UBUNTU : LINUX;
+		};
+
+		BlockingQueue<Platform> published = new LinkedBlockingQueue<>();
+		try (PlatformWatcher watcher = PlatformWatcher.start(Collections.singletonList(releaseFile), detection)) {
+			watcher.subscribe(published::add);
+			watcher.subscribe(platform -> {
+				throw new AssertionError("subscriber failed");
+			});
+
+			write(releaseFile, "NAME=Broken");
+			Thread.sleep(PlatformWatcher.SETTLE_MILLIS * 4);
+			write(releaseFile, "NAME=Ubuntu");
+
+			assertThat(published.poll(20, TimeUnit.SECONDS)).isEqualTo(UBUNTU);
+
+			write(releaseFile, "NAME=Linux");
+
+			assertThat(published.poll(20, TimeUnit.SECONDS)).isEqualTo(LINUX);
+		}
+	}
+
+	@Test
+	void changeDuringInitialDetectionShouldNotBeMissed(@TempDir Path tempDir) throws Exception {
+		Path releaseFile = tempDir.resolve("os-release");
+		write(releaseFile, "NAME=Linux");
+
+		AtomicInteger detections = new AtomicInteger();
+		Supplier<Platform> detection = () -> {
+			if (detections.incrementAndGet() == 1) {
+				Platform detected = read(releaseFile).contains("Ubuntu") ? UBUNTU : LINUX;
+				write(releaseFile, "NAME=Ubuntu");
+				return detected;
+			}
+			return read(releaseFile).contains("Ubuntu") ? UBUNTU : LINUX;
+		};
+
+		try (PlatformWatcher watcher = PlatformWatcher.start(Collections.singletonList(releaseFile), detection)) {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+			while (!UBUNTU.equals(watcher.platform()) && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(watcher.platform()).isEqualTo(UBUNTU);
+		}
+	}
+
+	private static void write(Path path, String content) {
+		try {
+			Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException iox) {
+			throw new UncheckedIOException(iox);
+		}
+	}
+
+	private static String read(Path path) {
+		try {
+			return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+		} catch (IOException iox) {
+			throw new UncheckedIOException(iox);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common;
+
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.attributes.MappedTextFile;
+import de.flapdoodle.os.common.attributes.SystemProperty;
+import de.flapdoodle.os.common.listener.DetectionListener;
+import de.flapdoodle.os.common.listener.DetectionListeners;
+import de.flapdoodle.os.common.matcher.Match;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import de.flapdoodle.os.common.matcher.Matchers;
+import de.flapdoodle.os.common.matcher.OsReleaseFileMapEntry;
+import de.flapdoodle.os.common.types.ImmutableOsReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFileConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CandidateIndexTest {
+
+	private static final MappedTextFile<OsReleaseFile> OS_RELEASE = Attributes.mappedTextFile("/etc/os-release", OsReleaseFileConverter.INSTANCE);
+
+	private static DistinctPeculiarity<OsReleaseFile> versionId(String pattern) {
+		return DistinctPeculiarity.of(OS_RELEASE, Matchers.osReleaseFileEntry("VERSION_ID", pattern));
+	}
+
+	@Test
+	void onlyCandidatesWithMatchingLiteralAreEvaluated() {
+		List<Peculiarity> items = items();
+		CompiledPeculiarities compiled = new CompiledPeculiarities();
+		CandidateIndex<Peculiarity> testee = index(items, compiled);
+
+		AtomicInteger entryMatches = new AtomicInteger();
+		DetectionListener listener = new DetectionListener() {
+			@Override
+			public void matcherEvaluated(Attribute<?> attribute, Match<?> match, boolean matches, long nanos) {
+				entryMatches.incrementAndGet();
+			}
+		};
+		MatcherLookup matcherLookup = MatcherLookup.systemDefault();
+
+		List<Peculiarity> candidates = DetectionListeners.with(listener,
+			() -> testee.candidates(compiled.evaluation(lookup("22.04"), matcherLookup)));
+
+		assertThat(candidates).containsExactly(items.get(1), items.get(2), items.get(3));
+		assertThat(entryMatches.get()).isZero();
+
+		assertThat(testee.candidates(compiled.evaluation(lookup("20.04"), matcherLookup))).containsExactly(items.get(0), items.get(2), items.get(3));
+		assertThat(testee.candidates(compiled.evaluation(lookup("18.04"), matcherLookup))).containsExactly(items.get(2), items.get(3));
+	}
+
+	@Test
+	void customEntryMatcherDisablesTheIndex() {
+		List<Peculiarity> items = items();
+		CompiledPeculiarities compiled = new CompiledPeculiarities();
+		CandidateIndex<Peculiarity> testee = index(items, compiled);
+
+		// VERSION_ID is a prefix here, not the whole value
+		MatcherLookup matcherLookup = MatcherLookup.forType(OsReleaseFileMapEntry.class, (Optional<OsReleaseFile> value, OsReleaseFileMapEntry match) ->
+				value.map(it -> it.attributes().get(match.key()))
+					.map(it -> match.valuePattern().matcher(it).lookingAt())
+					.orElse(false))
+			.join(MatcherLookup.systemDefault());
+
+		assertThat(testee.candidates(compiled.evaluation(lookup("20.04.6"), matcherLookup))).containsExactlyElementsOf(items);
+	}
+
+	private static List<Peculiarity> items() {
+		Peculiarity v20 = versionId(Pattern.quote("20.04"));
+		Peculiarity v22 = AllOf.of(
+			DistinctPeculiarity.of(Attributes.systemProperty("os.name"), Matchers.matchPattern("Linux")),
+			versionId("22\\.04"));
+		Peculiarity v23 = versionId("23.*");
+		Peculiarity v24 = OneOf.of(versionId("24\\.04"), versionId("24\\.10"));
+
+		return Arrays.asList(v20, v22, v23, v24);
+	}
+
+	private static CandidateIndex<Peculiarity> index(List<Peculiarity> items, CompiledPeculiarities compiled) {
+		Map<Peculiarity, Condition> conditions = new IdentityHashMap<>();
+		items.forEach(it -> conditions.put(it, compiled.compile(it)));
+		return CandidateIndex.of(items, conditions::get, compiled);
+	}
+
+	private static AttributeExtractorLookup lookup(String versionId) {
+		return AttributeExtractorLookup
+			.with(SystemProperty.any(), it -> it.name().equals("os.name") ? Optional.of("Linux") : Optional.empty())
+			.join(AttributeExtractorLookup.<OsReleaseFile, MappedTextFile<OsReleaseFile>>with(MappedTextFile.any(),
+				attribute -> Optional.of(ImmutableOsReleaseFile.builder()
+					.putAttributes("VERSION_ID", versionId)
+					.build())))
+			.join(AttributeExtractorLookup.failing());
+	}
+}
@@ -92,4 +92,23 @@ class PeculiarityInspectorTest {
 
 		assertThat(matches).isTrue();
 	}
+
+	@Test
+	void cheapChecksShouldShortCircuitFileAccess() {
+		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup.with(
+				TextFile.any(), attribute -> {
+					throw new AssertionError("should not read " + attribute);
+				})
+			.join(AttributeExtractorLookup.with(
+				SystemProperty.any(), attribute -> attribute.name().equals("os.name") ? Optional.of("Linux") : Optional.empty()));
+
+		MatcherLookup matcherLookup = MatcherLookup.forType(MatchPattern.class, new PatternMatcher());
+
+		DistinctPeculiarity<String> textfile = DistinctPeculiarity.of(Attributes.textFile("/etc/centos-release"), Matchers.matchPattern("CentOS"));
+		DistinctPeculiarity<String> osName = DistinctPeculiarity.of(Attributes.systemProperty("os.name"), Matchers.matchPattern("Linux"));
+		DistinctPeculiarity<String> osArch = DistinctPeculiarity.of(Attributes.systemProperty("os.arch"), Matchers.matchPattern("x86"));
+
+		assertThat(PeculiarityInspector.matches(attributeExtractorLookup, matcherLookup, OneOf.of(textfile, osName))).isTrue();
+		assertThat(PeculiarityInspector.matches(attributeExtractorLookup, matcherLookup, AllOf.of(textfile, osArch))).isFalse();
+	}
 }
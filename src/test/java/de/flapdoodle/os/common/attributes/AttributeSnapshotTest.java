@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import de.flapdoodle.os.common.types.OsReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFileConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AttributeSnapshotTest {
+
+	@Test
+	void recordAndReplayAttributes(@TempDir Path tempDir) throws IOException {
+		AttributeExtractorLookup host = AttributeExtractorLookup.with(
+				SystemProperty.any(), attribute -> attribute.name().equals("os.name") ? Optional.of("Linux") : Optional.empty())
+			.join(AttributeExtractorLookup.with(
+				TextFile.any(), attribute -> attribute.name().equals("/etc/os-release")
+					? Optional.of("NAME=\"Ubuntu\"\nVERSION_ID=\"18.10\"\n")
+					: Optional.empty()))
+			.join(AttributeExtractorLookup.failing());
+
+		AttributeSnapshot.Recorder recorder = AttributeSnapshot.recording(host);
+
+		MappedTextFile<OsReleaseFile> osRelease = Attributes.mappedTextFile("/etc/os-release", OsReleaseFileConverter.INSTANCE);
+
+		assertThat(extract(recorder, Attributes.systemProperty("os.name"))).contains("Linux");
+		assertThat(extract(recorder, Attributes.systemProperty("os.arch"))).isEmpty();
+		assertThat(extract(recorder, osRelease).map(it -> it.attributes().get("VERSION_ID"))).contains("18.10");
+
+		Path snapshotFile = tempDir.resolve("snapshot.properties");
+		recorder.snapshot().write(snapshotFile);
+
+		AttributeSnapshot replay = AttributeSnapshot.read(snapshotFile);
+
+		assertThat(replay.values()).isEqualTo(recorder.snapshot().values());
+
+		AttributeExtractorLookup lookup = replay.lookup();
+		assertThat(extract(lookup, Attributes.systemProperty("os.name"))).contains("Linux");
+		assertThat(extract(lookup, Attributes.systemProperty("os.arch"))).isEmpty();
+		assertThat(extract(lookup, Attributes.textFile("/etc/os-release"))).contains("NAME=\"Ubuntu\"\nVERSION_ID=\"18.10\"\n");
+		assertThat(extract(lookup, osRelease).map(it -> it.attributes().get("NAME"))).contains("Ubuntu");
+	}
+
+	@Test
+	void recordingDoesNotChangeMappedTextFileResults() {
+		MappedTextFile<OsReleaseFile> osRelease = Attributes.mappedTextFile("/etc/os-release", OsReleaseFileConverter.INSTANCE);
+		OsReleaseFile ubuntu = OsReleaseFileConverter.INSTANCE.apply("NAME=\"Ubuntu\"\n");
+		AttributeExtractorLookup mappedOnly = AttributeExtractorLookup.<OsReleaseFile, MappedTextFile<OsReleaseFile>>with(
+				MappedTextFile.any(), attribute -> Optional.of(ubuntu))
+			.join(AttributeExtractorLookup.failing());
+
+		AttributeSnapshot.Recorder recorder = AttributeSnapshot.recording(mappedOnly);
+
+		assertThat(extract(recorder, osRelease)).isEqualTo(extract(mappedOnly, osRelease));
+		assertThat(recorder.snapshot().values()).isEmpty();
+	}
+
+	@Test
+	void failOnUnknownVersion(@TempDir Path tempDir) throws IOException {
+		Path snapshotFile = tempDir.resolve("snapshot.properties");
+		Files.write(snapshotFile, "snapshot.version=0\n".getBytes());
+
+		assertThatThrownBy(() -> AttributeSnapshot.read(snapshotFile))
+			.isInstanceOf(IOException.class)
+			.hasMessageContaining("unsupported snapshot version");
+	}
+
+	private static <T, A extends Attribute<T>> Optional<T> extract(AttributeExtractorLookup lookup, A attribute) {
+		return lookup.<T, A>extractor(attribute)
+			.flatMap(it -> it.extract(attribute));
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingWrapperTest {
+
+	@Test
+	void extractEachAttributeOnlyOnce() {
+		AtomicInteger calls = new AtomicInteger();
+
+		AttributeExtractorLookup testee = CachingWrapper.wrap(AttributeExtractorLookup.with(
+			SystemProperty.any(), attribute -> {
+				calls.incrementAndGet();
+				return attribute.name().equals("os.name") ? Optional.of("Linux") : Optional.empty();
+			})
+			.join(AttributeExtractorLookup.failing()));
+
+		assertThat(extract(testee, Attributes.systemProperty("os.name"))).contains("Linux");
+		assertThat(extract(testee, Attributes.systemProperty("os.name"))).contains("Linux");
+		assertThat(extract(testee, Attributes.systemProperty("os.arch"))).isEmpty();
+		assertThat(extract(testee, Attributes.systemProperty("os.arch"))).isEmpty();
+
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	private static <T, A extends Attribute<T>> Optional<T> extract(AttributeExtractorLookup lookup, A attribute) {
+		return lookup.<T, A>extractor(attribute)
+			.flatMap(it -> it.extract(attribute));
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import de.flapdoodle.os.common.AllOf;
+import de.flapdoodle.os.common.DistinctPeculiarity;
+import de.flapdoodle.os.common.PeculiarityInspector;
+import de.flapdoodle.os.common.matcher.Matchers;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CpuFeaturesResolverTest {
+
+	@Test
+	void aarch64FeaturesAreDecodedFromAuxv(@TempDir Path tempDir) {
+		CpuFeatures attribute = Attributes.cpuFeatures(resource("aarch64-auxv.bin"), tempDir.resolve("missing").toString());
+
+		Optional<Set<String>> features = new CpuFeaturesResolver(true).extract(attribute);
+
+		assertThat(features).isPresent();
+		assertThat(features.get())
+			.contains("fp", "asimd", "aes", "pmull", "sha2", "sve", "i8mm", "bf16", "rng")
+			.doesNotContain("sve2", "mte");
+	}
+
+	@Test
+	void auxvAndCpuInfoAgreeOnAarch64() {
+		assertThat(CpuFeaturesResolver.fromAuxv(Paths.get(resource("aarch64-auxv.bin"))))
+			.isEqualTo(CpuFeaturesResolver.fromCpuInfo(Paths.get(resource("aarch64-cpuinfo.txt"))));
+	}
+
+	@Test
+	void aarch64FallsBackToCpuInfo(@TempDir Path tempDir) {
+		CpuFeatures attribute = Attributes.cpuFeatures(tempDir.resolve("missing").toString(), resource("aarch64-cpuinfo.txt"));
+
+		assertThat(new CpuFeaturesResolver(true).extract(attribute).get())
+			.contains("asimd", "sve", "sha512");
+	}
+
+	@Test
+	void auxvWithoutHwcapIsIgnored(@TempDir Path tempDir) throws IOException {
+		Path empty = Files.write(tempDir.resolve("auxv"), new byte[0]);
+
+		assertThat(CpuFeaturesResolver.fromAuxv(empty)).isEmpty();
+	}
+
+	@Test
+	void x86FeaturesAreReadFromCpuInfoFlags() {
+		CpuFeatures attribute = Attributes.cpuFeatures(resource("x86_64-auxv.bin"), resource("x86_64-cpuinfo.txt"));
+
+		Optional<Set<String>> features = new CpuFeaturesResolver(false).extract(attribute);
+
+		assertThat(features).isPresent();
+		assertThat(features.get())
+			.contains("sse4_2", "avx", "avx2", "avx512f")
+			.doesNotContain("asimd");
+	}
+
+	@Test
+	void onlyAarch64UsesAuxv() {
+		assertThat(CpuFeaturesResolver.isAarch64("aarch64")).isTrue();
+		assertThat(CpuFeaturesResolver.isAarch64("amd64")).isFalse();
+		assertThat(CpuFeaturesResolver.isAarch64("arm")).isFalse();
+		assertThat(CpuFeaturesResolver.isAarch64(null)).isFalse();
+	}
+
+	@Test
+	void peculiarityCanRequireFeatures() {
+		CpuFeatures attribute = Attributes.cpuFeatures(resource("x86_64-auxv.bin"), resource("x86_64-cpuinfo.txt"));
+		AttributeExtractorLookup lookup = AttributeExtractorLookup.with(CpuFeatures.any(), new CpuFeaturesResolver(false))
+			.join(AttributeExtractorLookup.failing());
+
+		AllOf avx2 = AllOf.of(
+			DistinctPeculiarity.of(attribute, Matchers.cpuFeatures("avx")),
+			DistinctPeculiarity.of(attribute, Matchers.cpuFeatures("avx2", "fma"))
+		);
+
+		assertThat(PeculiarityInspector.matches(lookup, MatcherLookup.systemDefault(), avx2)).isTrue();
+		assertThat(PeculiarityInspector.matches(lookup, MatcherLookup.systemDefault(),
+			DistinctPeculiarity.of(attribute, Matchers.cpuFeatures("avx2", "sve")))).isFalse();
+	}
+
+	@Test
+	void cpuFeaturesAreRecordedInSnapshot() {
+		CpuFeatures attribute = Attributes.cpuFeatures(resource("aarch64-auxv.bin"), resource("aarch64-cpuinfo.txt"));
+		AttributeSnapshot.Recorder recorder = AttributeSnapshot.recording(
+			AttributeExtractorLookup.with(CpuFeatures.any(), new CpuFeaturesResolver(true))
+				.join(AttributeExtractorLookup.failing()));
+
+		Optional<Set<String>> recorded = recorder.extractor(attribute).get().extract(attribute);
+
+		AttributeExtractorLookup replay = recorder.snapshot().lookup();
+		assertThat(replay.extractor(attribute).get().extract(attribute)).isEqualTo(recorded);
+	}
+
+	private static String resource(String name) {
+		try {
+			return Paths.get(CpuFeaturesResolverTest.class.getResource("cpu/" + name).toURI()).toString();
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.attributes;
+
+import de.flapdoodle.os.common.types.OsReleaseFile;
+import de.flapdoodle.os.common.types.OsReleaseFileConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextFileCacheTest {
+
+	@Test
+	void readFileOnlyOnceUntilInvalidated(@TempDir Path tempDir) throws IOException {
+		Path file = write(tempDir.resolve("os-release"), "ID=ubuntu");
+		TextFileCache testee = new TextFileCache();
+
+		assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).contains("ID=ubuntu");
+		write(file, "ID=debian");
+		assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).contains("ID=ubuntu");
+
+		testee.invalidate(file.toString());
+
+		assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).contains("ID=debian");
+	}
+
+	@Test
+	void convertOnlyOncePerConverter(@TempDir Path tempDir) throws IOException {
+		Path file = write(tempDir.resolve("os-release"), "ID=ubuntu");
+		TextFileCache testee = new TextFileCache();
+		AtomicInteger conversions = new AtomicInteger();
+		Function<String, String> counting = content -> {
+			conversions.incrementAndGet();
+			return content.toUpperCase();
+		};
+
+		assertThat(testee.converted(file.toString(), StandardCharsets.UTF_8, counting)).contains("ID=UBUNTU");
+		assertThat(testee.converted(file.toString(), StandardCharsets.UTF_8, counting)).contains("ID=UBUNTU");
+		assertThat(conversions.get()).isEqualTo(1);
+
+		Optional<OsReleaseFile> parsed = testee.converted(file.toString(), StandardCharsets.UTF_8, OsReleaseFileConverter.INSTANCE);
+		assertThat(parsed.map(it -> it.attributes().get("ID"))).contains("ubuntu");
+
+		// raw content, upper case and parsed
+		assertThat(testee.size()).isEqualTo(3);
+	}
+
+	@Test
+	void resolversShareCachedContent(@TempDir Path tempDir) throws IOException {
+		Path file = write(tempDir.resolve("os-release"), "NAME=\"Ubuntu\"");
+		TextFileCache cache = new TextFileCache();
+
+		assertThat(new TextFileResolver(cache).extract(Attributes.textFile(file.toString()))).contains("NAME=\"Ubuntu\"");
+		write(file, "NAME=\"Debian\"");
+
+		Optional<OsReleaseFile> result = new MappedTextFileResolver<OsReleaseFile>(cache)
+			.extract(Attributes.mappedTextFile(file.toString(), OsReleaseFileConverter.INSTANCE));
+
+		assertThat(result.map(it -> it.attributes().get("NAME"))).contains("Ubuntu");
+	}
+
+	@Test
+	void missingFilesAreCachedToo(@TempDir Path tempDir) throws IOException {
+		Path file = tempDir.resolve("missing");
+		TextFileCache testee = new TextFileCache();
+
+		assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).isEmpty();
+		write(file, "now there");
+		assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).isEmpty();
+
+		testee.clear();
+
+		assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).contains("now there");
+	}
+
+	@Test
+	void evictLeastRecentlyUsed(@TempDir Path tempDir) throws IOException {
+		TextFileCache testee = new TextFileCache(2);
+
+		for (int i = 0; i < 5; i++) {
+			Path file = write(tempDir.resolve("file-" + i), "content-" + i);
+			assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).contains("content-" + i);
+		}
+
+		assertThat(testee.size()).isEqualTo(2);
+	}
+
+	@Test
+	void disabledCacheAlwaysReads(@TempDir Path tempDir) throws IOException {
+		Path file = write(tempDir.resolve("os-release"), "ID=ubuntu");
+		TextFileCache testee = TextFileCache.disabled();
+
+		assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).contains("ID=ubuntu");
+		write(file, "ID=debian");
+		assertThat(testee.content(file.toString(), StandardCharsets.UTF_8)).contains("ID=debian");
+		assertThat(testee.size()).isEqualTo(0);
+	}
+
+	private static Path write(Path path, String content) throws IOException {
+		return Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
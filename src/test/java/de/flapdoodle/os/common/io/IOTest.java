@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IOTest {
+
+	@Test
+	void missingFileIsEmpty(@TempDir Path tempDir) {
+		assertThat(IO.readString(tempDir.resolve("missing"), StandardCharsets.UTF_8)).isEmpty();
+	}
+
+	@Test
+	void directoryIsEmpty(@TempDir Path tempDir) {
+		assertThat(IO.readString(tempDir, StandardCharsets.UTF_8)).isEmpty();
+	}
+
+	@Test
+	void readSmallFile(@TempDir Path tempDir) throws IOException {
+		Path file = Files.write(tempDir.resolve("os-release"), "NAME=\"Ubuntü\"\n".getBytes(StandardCharsets.UTF_8));
+
+		assertThat(IO.readString(file, StandardCharsets.UTF_8)).contains("NAME=\"Ubuntü\"\n");
+	}
+
+	@Test
+	void readFilesLargerThanBuffer(@TempDir Path tempDir) throws IOException {
+		for (int size : new int[] { IO.BUFFER_SIZE - 1, IO.BUFFER_SIZE, IO.BUFFER_SIZE + 1, 64 * IO.BUFFER_SIZE }) {
+			String content = content(size);
+			Path file = Files.write(tempDir.resolve("file-" + size), content.getBytes(StandardCharsets.UTF_8));
+
+			assertThat(IO.readString(file, StandardCharsets.UTF_8)).contains(content);
+		}
+	}
+
+	@Test
+	void readHugeFile(@TempDir Path tempDir) throws IOException {
+		String content = content(4 * 1024 * 1024 + 1);
+		Path file = Files.write(tempDir.resolve("huge"), content.getBytes(StandardCharsets.UTF_8));
+
+		assertThat(IO.readString(file, StandardCharsets.UTF_8)).contains(content);
+	}
+
+	@Test
+	void pooledBufferIsNotSharedBetweenConcurrentReads(@TempDir Path tempDir) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				String content = content(IO.BUFFER_SIZE / 2 + i).replace('x', (char) ('a' + i % 26));
+				Path file = Files.write(tempDir.resolve("file-" + i), content.getBytes(StandardCharsets.UTF_8));
+				results.add(executor.submit(() -> IO.readString(file, StandardCharsets.UTF_8).equals(Optional.of(content))));
+			}
+			for (Future<Boolean> result : results) {
+				assertThat(result.get()).isTrue();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void readProcFileWithZeroReportedSize() {
+		Path procFile = Paths.get("/proc/self/status");
+		if (Files.exists(procFile)) {
+			assertThat(IO.readString(procFile, StandardCharsets.UTF_8))
+				.hasValueSatisfying(content -> assertThat(content).contains("Name:"));
+		}
+	}
+
+	private static String content(int size) {
+		char[] chars = new char[size];
+		Arrays.fill(chars, 'x');
+		return new String(chars);
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.jfr;
+
+import de.flapdoodle.os.common.DistinctPeculiarity;
+import de.flapdoodle.os.common.PeculiarityInspector;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.attributes.TextFileCache;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import de.flapdoodle.os.common.matcher.Matchers;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrTest {
+
+	@Test
+	void eventsShouldBeRecorded(@TempDir Path tempDir) throws IOException {
+		Path releaseFile = tempDir.resolve("release");
+		Files.write(releaseFile, "NAME=Foo".getBytes(StandardCharsets.UTF_8));
+
+		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup.systemDefault(TextFileCache.disabled());
+		DistinctPeculiarity<String> peculiarity = DistinctPeculiarity.of(Attributes.textFile(releaseFile.toString()), Matchers.matchPattern("Foo"));
+
+		Path dump = tempDir.resolve("recording.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("de.flapdoodle.os.AttributeExtraction");
+			recording.enable("de.flapdoodle.os.FileRead");
+			recording.enable("de.flapdoodle.os.PeculiarityEvaluation");
+			recording.start();
+
+			assertThat(PeculiarityInspector.matches(attributeExtractorLookup, MatcherLookup.systemDefault(), peculiarity)).isTrue();
+
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+		assertThat(events)
+			.extracting(it -> it.getEventType().getName())
+			.containsExactly(
+				"de.flapdoodle.os.FileRead",
+				"de.flapdoodle.os.AttributeExtraction",
+				"de.flapdoodle.os.PeculiarityEvaluation");
+
+		assertThat(events.get(0).getLong("bytes")).isEqualTo(8);
+		assertThat(events.get(1).getString("name")).isEqualTo(releaseFile.toString());
+		assertThat(events.get(2).getBoolean("matches")).isTrue();
+	}
+
+	@Test
+	void withoutRecordingNoEventIsStarted() {
+		assertThat(Jfr.beginPlatformDetection()).isNull();
+		assertThat(Jfr.beginFileRead()).isNull();
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.listener;
+
+import de.flapdoodle.os.CompiledCatalog;
+import de.flapdoodle.os.OSSample;
+import de.flapdoodle.os.common.attributes.Attribute;
+import de.flapdoodle.os.common.attributes.AttributeExtractorLookup;
+import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.attributes.SystemProperty;
+import de.flapdoodle.os.common.matcher.Match;
+import de.flapdoodle.os.common.matcher.MatcherLookup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DetectionListenersTest {
+
+	@AfterEach
+	void reset() {
+		DetectionListeners.reset();
+	}
+
+	@Test
+	void withoutListenerNothingIsWrapped() {
+		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup.failing();
+
+		assertThat(DetectionListeners.current()).isSameAs(DetectionListener.NOOP);
+		assertThat(DetectionListeners.wrap(attributeExtractorLookup)).isSameAs(attributeExtractorLookup);
+	}
+
+	@Test
+	void listenerShouldGetPhasesExtractionsAndMatches() {
+		Recording recording = new Recording();
+		DetectionListeners.register(recording);
+
+		AttributeExtractorLookup attributeExtractorLookup = AttributeExtractorLookup
+			.with(SystemProperty.any(), it -> {
+				if (it.name().equals("os.name")) {
+					return Optional.of("Mac OS X");
+				}
+				if (it.name().equals("os.arch")) {
+					return Optional.of("aarch64");
+				}
+				return Optional.empty();
+			})
+			.join(AttributeExtractorLookup.failing());
+
+		CompiledCatalog.of(OSSample.all())
+			.detect(DetectionListeners.wrap(attributeExtractorLookup), MatcherLookup.systemDefault());
+
+		assertThat(recording.phases).containsExactly(
+			DetectionListener.Phase.OS,
+			DetectionListener.Phase.ARCHITECTURE,
+			DetectionListener.Phase.DISTRIBUTION,
+			DetectionListener.Phase.VERSION);
+		assertThat(recording.attributes).contains(Attributes.systemProperty("os.name"), Attributes.systemProperty("os.arch"));
+		assertThat(recording.matches).isNotEmpty();
+		assertThat(recording.matchedAttributes).contains(Attributes.systemProperty("os.name"));
+		assertThat(recording.hits).contains(DetectionListener.Cache.ATTRIBUTE);
+		assertThat(recording.misses).contains(DetectionListener.Cache.ATTRIBUTE);
+	}
+
+	@Test
+	void registeredListenersAreJoined() {
+		Recording first = new Recording();
+		Recording second = new Recording();
+		DetectionListeners.register(first);
+		DetectionListeners.register(second);
+
+		DetectionListeners.current().cacheHit(DetectionListener.Cache.PLATFORM);
+
+		assertThat(first.hits).containsExactly(DetectionListener.Cache.PLATFORM);
+		assertThat(second.hits).containsExactly(DetectionListener.Cache.PLATFORM);
+	}
+
+	@Test
+	void scopedListenerIsOnlyCalledOnItsThreadAndOnlyWithinTheScope() {
+		Recording scoped = new Recording();
+
+		DetectionListeners.with(scoped, () -> {
+			DetectionListeners.current().cacheHit(DetectionListener.Cache.PLATFORM);
+			Thread thread = new Thread(() -> DetectionListeners.current().cacheHit(DetectionListener.Cache.TEXT_FILE));
+			thread.start();
+			try {
+				thread.join();
+			} catch (InterruptedException ix) {
+				throw new RuntimeException(ix);
+			}
+			return null;
+		});
+		DetectionListeners.current().cacheHit(DetectionListener.Cache.ATTRIBUTE);
+
+		assertThat(scoped.hits).containsExactly(DetectionListener.Cache.PLATFORM);
+		assertThat(DetectionListeners.current()).isSameAs(DetectionListener.NOOP);
+	}
+
+	@Test
+	void scopedListenerIsJoinedWithRegisteredListenersAndSurvivesReset() {
+		Recording registered = new Recording();
+		Recording scoped = new Recording();
+		DetectionListeners.register(registered);
+
+		DetectionListeners.with(scoped, () -> {
+			DetectionListeners.current().cacheHit(DetectionListener.Cache.PLATFORM);
+			DetectionListeners.reset();
+			DetectionListeners.current().cacheMiss(DetectionListener.Cache.PLATFORM);
+			return null;
+		});
+
+		assertThat(registered.hits).containsExactly(DetectionListener.Cache.PLATFORM);
+		assertThat(registered.misses).isEmpty();
+		assertThat(scoped.hits).containsExactly(DetectionListener.Cache.PLATFORM);
+		assertThat(scoped.misses).containsExactly(DetectionListener.Cache.PLATFORM);
+	}
+
+	static class Recording implements DetectionListener {
+		final List<Phase> phases = new ArrayList<>();
+		final List<Attribute<?>> attributes = new ArrayList<>();
+		final List<Attribute<?>> matchedAttributes = new ArrayList<>();
+		final List<Match<?>> matches = new ArrayList<>();
+		final List<Cache> hits = new ArrayList<>();
+		final List<Cache> misses = new ArrayList<>();
+
+		@Override
+		public void phase(Phase phase, long nanos) {
+			phases.add(phase);
+		}
+
+		@Override
+		public void attributeExtracted(Attribute<?> attribute, boolean found, long nanos) {
+			attributes.add(attribute);
+		}
+
+		@Override
+		public void matcherEvaluated(Attribute<?> attribute, Match<?> match, boolean matches, long nanos) {
+			this.matchedAttributes.add(attribute);
+			this.matches.add(match);
+		}
+
+		@Override
+		public void cacheHit(Cache cache) {
+			hits.add(cache);
+		}
+
+		@Override
+		public void cacheMiss(Cache cache) {
+			misses.add(cache);
+		}
+	}
+}
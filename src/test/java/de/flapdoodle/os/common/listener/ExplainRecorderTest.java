@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.listener;
+
+import de.flapdoodle.os.common.attributes.Attributes;
+import de.flapdoodle.os.common.matcher.Matchers;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExplainRecorderTest {
+
+	@Test
+	void dumpShouldGroupEventsByPhase() {
+		ExplainRecorder testee = new ExplainRecorder();
+
+		testee.attributeExtracted(Attributes.systemProperty("os.name"), true, TimeUnit.MICROSECONDS.toNanos(12));
+		testee.matcherEvaluated(Attributes.systemProperty("os.name"), Matchers.matchPattern("Linux"), true, TimeUnit.MICROSECONDS.toNanos(3));
+		testee.phase(DetectionListener.Phase.OS, TimeUnit.MICROSECONDS.toNanos(20));
+		testee.attributeExtracted(Attributes.systemProperty("os.arch"), false, 0);
+		testee.phase(DetectionListener.Phase.ARCHITECTURE, TimeUnit.MICROSECONDS.toNanos(5));
+
+		assertThat(testee.dump().split("\\R")).containsExactly(
+			"OS (20us)",
+			"  attribute SystemProperty{name=os.name}: found (12us)",
+			"  match SystemProperty{name=os.name} ~ MatchPattern{lazyPattern=Linux}: true (3us)",
+			"ARCHITECTURE (5us)",
+			"  attribute SystemProperty{name=os.arch}: not found (0us)"
+		);
+	}
+
+	@Test
+	void onlyTheLastEventsAreKept() {
+		ExplainRecorder testee = new ExplainRecorder(2);
+
+		testee.phase(DetectionListener.Phase.OS, 0);
+		testee.phase(DetectionListener.Phase.ARCHITECTURE, 0);
+		testee.phase(DetectionListener.Phase.DISTRIBUTION, 0);
+
+		assertThat(testee.dump().split("\\R")).containsExactly(
+			"(1 older events dropped)",
+			"ARCHITECTURE (0us)",
+			"DISTRIBUTION (0us)"
+		);
+
+		testee.clear();
+		assertThat(testee.dump()).isEmpty();
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.matcher;
+
+import de.flapdoodle.os.BitSize;
+import de.flapdoodle.os.CPUType;
+import de.flapdoodle.os.Endianness;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchitectureTableTest {
+
+	@Test
+	void normalizeLowerCasesAndStripsSeparators() {
+		assertThat(ArchitectureTable.normalize("x86_64")).isEqualTo("x8664");
+		assertThat(ArchitectureTable.normalize("PPC64-LE")).isEqualTo("ppc64le");
+		assertThat(ArchitectureTable.normalize(" s390x ")).isEqualTo("s390x");
+	}
+
+	@Test
+	void lookupResolvesAliasesToTheSameMatch() {
+		assertThat(ArchitectureTable.lookup("amd64")).isEqualTo(ArchitectureTable.lookup("X86_64"))
+			.contains(Matchers.architecture(CPUType.X86, BitSize.B64, Endianness.LITTLE));
+		assertThat(ArchitectureTable.lookup("ppc64le"))
+			.contains(Matchers.architecture(CPUType.PPC, BitSize.B64, Endianness.LITTLE));
+		assertThat(ArchitectureTable.lookup("s390x"))
+			.contains(Matchers.architecture(CPUType.S390, BitSize.B64, Endianness.BIG));
+		assertThat(ArchitectureTable.lookup("riscv64"))
+			.contains(Matchers.architecture(CPUType.RISCV, BitSize.B64, Endianness.LITTLE));
+		assertThat(ArchitectureTable.lookup("unknown")).isEmpty();
+	}
+
+	@Test
+	void matcherIsRegisteredAsSystemDefault() {
+		ArchitectureMatch ppc64le = Matchers.architecture(CPUType.PPC, BitSize.B64, Endianness.LITTLE);
+
+		Optional<Matcher<String, ArchitectureMatch>> matcher = MatcherLookup.systemDefault().matcher(ppc64le);
+
+		assertThat(matcher).isPresent();
+		assertThat(matcher.get().match(Optional.of("ppc64le"), ppc64le)).isTrue();
+		assertThat(matcher.get().match(Optional.of("ppc64"), ppc64le)).isFalse();
+		assertThat(matcher.get().match(Optional.empty(), ppc64le)).isFalse();
+	}
+}
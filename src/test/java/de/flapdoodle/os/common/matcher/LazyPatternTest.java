@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LazyPatternTest {
+
+	@Test
+	void internedBySourceAndFlags() {
+		LazyPattern ubuntu = LazyPattern.of("Ubuntu");
+
+		assertThat(LazyPattern.of("Ubuntu")).isSameAs(ubuntu);
+		assertThat(LazyPattern.of("Ubuntu", Pattern.CASE_INSENSITIVE)).isNotSameAs(ubuntu);
+		assertThat(Matchers.matchPattern("Ubuntu").lazyPattern()).isSameAs(ubuntu);
+		assertThat(Matchers.osReleaseFileEntry("NAME", "Ubuntu").lazyValuePattern()).isSameAs(ubuntu);
+		assertThat(Matchers.matchPattern("Ubuntu")).isEqualTo(Matchers.matchPattern("Ubuntu"));
+	}
+
+	@Test
+	void literalShapesAreNeverCompiled() {
+		MatchPattern match = Matchers.matchPattern(".*lazy-literal.*");
+
+		assertThat(new PatternMatcher().match(Optional.of("a lazy-literal value"), match)).isTrue();
+		assertThat(new PatternMatcher().match(Optional.of("something else"), match)).isFalse();
+		assertThat(match.lazyPattern().isCompiled()).isFalse();
+	}
+
+	@Test
+	void regexIsCompiledOnFirstMatch() {
+		MatchPattern match = Matchers.matchPattern("lazy-[0-9]+-regex");
+		assertThat(match.lazyPattern().isCompiled()).isFalse();
+
+		assertThat(new PatternMatcher().match(Optional.of("a lazy-42-regex"), match)).isTrue();
+		assertThat(match.lazyPattern().isCompiled()).isTrue();
+		assertThat(match.pattern()).isSameAs(match.pattern());
+	}
+
+	@Test
+	void syntaxErrorShowsUpOnFirstUse() {
+		LazyPattern broken = LazyPattern.of("lazy-(broken");
+
+		assertThat(broken.source()).isEqualTo("lazy-(broken");
+		assertThatThrownBy(broken::pattern).isInstanceOf(PatternSyntaxException.class);
+	}
+
+	@Test
+	void compiledPatternIsWrappedNotInterned() {
+		Pattern pattern = Pattern.compile("lazy-wrapped");
+
+		LazyPattern testee = LazyPattern.of(pattern);
+
+		assertThat(testee.isCompiled()).isTrue();
+		assertThat(testee.pattern()).isSameAs(pattern);
+		assertThat(LazyPattern.of("lazy-wrapped"))
+			.isEqualTo(testee)
+			.isNotSameAs(testee);
+	}
+
+	@Test
+	void unusedPatternsCanBeCollected() throws InterruptedException {
+		WeakReference<LazyPattern> unused = new WeakReference<>(LazyPattern.of("lazy-unused-" + System.nanoTime()));
+
+		for (int i = 0; i < 50 && unused.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertThat(unused.get()).isNull();
+	}
+
+	@Test
+	void patternsCanBeCreatedFromCompiledPatterns() {
+		Pattern pattern = Pattern.compile("lazy-compiled", Pattern.CASE_INSENSITIVE);
+
+		assertThat(MatchPattern.of(pattern).pattern()).isSameAs(pattern);
+		assertThat(Matchers.matchPattern(pattern)).isEqualTo(MatchPattern.of(pattern));
+		assertThat(OsReleaseFileMapEntry.of("NAME", pattern).valuePattern()).isSameAs(pattern);
+		assertThat(Matchers.osReleaseFileEntry("NAME", pattern)).isEqualTo(OsReleaseFileMapEntry.of("NAME", pattern));
+		assertThat(LsbReleaseFileMapEntry.of("DISTRIB_ID", pattern).valuePattern()).isSameAs(pattern);
+		assertThat(Matchers.lsbReleaseFileEntry("DISTRIB_ID", pattern)).isEqualTo(LsbReleaseFileMapEntry.of("DISTRIB_ID", pattern));
+	}
+}
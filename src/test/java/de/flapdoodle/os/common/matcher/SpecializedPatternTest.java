@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.matcher;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpecializedPatternTest {
+
+	private static final List<String> VALUES = Arrays.asList(
+		"", "Linux", "linux", "Linux\n", "Any Linux OS", "Mac OS X", "Mac OS X 14",
+		"x86_64", "amd64", "x8664", "amd64\n", " amd64", "i686", "aarch64", "aarch64_be",
+		"4.14.256-197.484.amzn2.x86_64", "4.14.256-197.484.amzn2023.x86_64", "amzn2\r",
+		"7", "17", "7.9", "18.10", "18.100", "1810", "CentOS Linux", "CentOS\nLinux", "a.b", "a$b", "(inux)"
+	);
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"Linux", "Mac OS X", ".*amzn2.*", "^aarch64$", "^(arm|arm32)$", "(inux)",
+		"^(x8664|amd64|ia32e|em64t|x64|x86_64)$", "\\Q18.10\\E.*", "\\Q7\\E", ".*CentOS.*",
+		"^Linux", "OS$", "(?:amd64|aarch64)", "a\\.b", "a\\$b", "^.*Linux.*$"
+	})
+	void literalShapesAreSpecialized(String regex) {
+		SpecializedPattern testee = SpecializedPattern.of(Pattern.compile(regex));
+
+		assertThat(testee.isSpecialized()).isTrue();
+		assertSameResultAsRegex(testee);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"^(x8632|x86|i[3-6]86|ia32|x32)$", "^[a-z]+$", "a|b", "Lin.x", "a+", "\\d", "(a(b))", ".*", "(?i)linux"
+	})
+	void realRegexUsesPattern(String regex) {
+		SpecializedPattern testee = SpecializedPattern.of(Pattern.compile(regex));
+
+		assertThat(testee.isSpecialized()).isFalse();
+		assertSameResultAsRegex(testee);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"^(arm|arm32)$", "\\Q7\\E", "aarch64"})
+	void exactLiterals(String regex) {
+		SpecializedPattern testee = SpecializedPattern.of(Pattern.compile(regex));
+
+		assertThat(testee.exactLiterals()).isPresent();
+		testee.exactLiterals().get()
+			.forEach(literal -> assertThat(testee.pattern().matcher(literal).matches()).isTrue());
+	}
+
+	private static void assertSameResultAsRegex(SpecializedPattern testee) {
+		for (String value : VALUES) {
+			assertThat(testee.find(value))
+				.describedAs("find %s in '%s'", testee, value)
+				.isEqualTo(testee.pattern().matcher(value).find());
+			assertThat(testee.matches(value))
+				.describedAs("%s matches '%s'", testee, value)
+				.isEqualTo(testee.pattern().matcher(value).matches());
+		}
+	}
+}
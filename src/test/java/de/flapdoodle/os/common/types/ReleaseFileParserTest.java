@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.os.common.types;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReleaseFileParserTest {
+
+	@Test
+	void quotedAndUnquotedValues() {
+		Map<String, String> result = parse("NAME=\"CentOS Linux\"\n"
+			+ "ID=centos\r\n"
+			+ "  PRETTY_NAME = 'CentOS Linux 7 (Core)'  \n"
+			+ "VERSION_ID=\"7\"");
+
+		assertThat(result)
+			.containsEntry("NAME", "CentOS Linux")
+			.containsEntry("ID", "centos")
+			.containsEntry("PRETTY_NAME", "CentOS Linux 7 (Core)")
+			.containsEntry("VERSION_ID", "7")
+			.hasSize(4);
+	}
+
+	@Test
+	void unescapeDoubleQuotedValues() {
+		Map<String, String> result = parse("A=\"say \\\"hi\\\" \\$HOME \\`x\\` \\\\ \\n\"\n"
+			+ "B='no \\\"escape\\\"'\n");
+
+		assertThat(result)
+			.containsEntry("A", "say \"hi\" $HOME `x` \\ \\n")
+			.containsEntry("B", "no \\\"escape\\\"");
+	}
+
+	@Test
+	void ignoreCommentsBlankLinesAndLinesWithoutSeparator() {
+		Map<String, String> result = parse("# comment=ignored\n\n   \nno separator\n=no key\nID=ubuntu\n");
+
+		assertThat(result)
+			.containsEntry("ID", "ubuntu")
+			.hasSize(1);
+	}
+
+	@Test
+	void emptyAndUnterminatedValues() {
+		Map<String, String> result = parse("EMPTY=\nEMPTY_QUOTED=\"\"\nOPEN=\"not closed\n");
+
+		assertThat(result)
+			.containsEntry("EMPTY", "")
+			.containsEntry("EMPTY_QUOTED", "")
+			.containsEntry("OPEN", "\"not closed");
+	}
+
+	@Test
+	void emptyValueShouldNotFailConverter() {
+		assertThat(OsReleaseFileConverter.convert("VARIANT=\nID=fedora").attributes())
+			.containsEntry("VARIANT", "")
+			.containsEntry("ID", "fedora");
+	}
+
+	private static Map<String, String> parse(String content) {
+		Map<String, String> result = new LinkedHashMap<>();
+		ReleaseFileParser.parse(content, result::put);
+		return result;
+	}
+}